@@ -1,3 +1,6 @@
 module ru.ifmo.rain.gunkin.arrayset {
+    requires junit;
+
     exports ru.ifmo.rain.gunkin.arrayset;
-}
\ No newline at end of file
+    exports ru.ifmo.rain.gunkin.arrayset.test;
+}
@@ -1,11 +1,18 @@
 package ru.ifmo.rain.gunkin.arrayset;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 public class ArraySet<E> extends AbstractSet<E>
         implements NavigableSet<E> {
 
-    private final List<E> data;
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    // Views share the array sorted by comparator and differ in range and direction
+    private final E[] data;
+    private final int from;
+    private final int to;
+    private final boolean reversed;
     private final Comparator<? super E> comparator;
 
     public ArraySet() {
@@ -23,67 +30,107 @@ public class ArraySet<E> extends AbstractSet<E>
     public ArraySet(Collection<? extends E> collection, Comparator<? super E> comparator) {
         this.comparator = comparator;
 
-        if (!CollectionUtils.isStrictlySorted(collection, comparator)) {
-            TreeSet<E> set = new TreeSet<>(comparator);
-            set.addAll(collection);
-            this.data = List.copyOf(set);
-        } else {
-            if (collection.stream().anyMatch(Objects::isNull)) {
+        //noinspection unchecked
+        E[] array = (E[]) collection.toArray();
+        for (E element : array) {
+            if (element == null) {
                 throw new NullPointerException("Collection must not contain null");
             }
-            this.data = List.copyOf(collection);
         }
 
+        int size = array.length;
+        if (!CollectionUtils.isStrictlySorted(Arrays.asList(array), comparator)) {
+            if (array.length >= PARALLEL_SORT_THRESHOLD) {
+                Arrays.parallelSort(array, comparator);
+            } else {
+                Arrays.sort(array, comparator);
+            }
+            size = distinct(array, comparator);
+        }
+        this.data = size == array.length ? array : Arrays.copyOf(array, size);
+        this.from = 0;
+        this.to = size;
+        this.reversed = false;
     }
 
-    private ArraySet(List<E> subList, Comparator<? super E> comparator) {
-        this.data = subList;
+    private ArraySet(E[] data, int from, int to, boolean reversed, Comparator<? super E> comparator) {
+        this.data = data;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
         this.comparator = comparator;
     }
 
-    private NavigableSet<E> emptySet() {
-        return new ArraySet<>(comparator);
+    private static <E> ArraySet<E> ofSorted(List<E> sorted, Comparator<? super E> comparator) {
+        //noinspection unchecked
+        return new ArraySet<>((E[]) sorted.toArray(), 0, sorted.size(), false, comparator);
+    }
+
+    public static <E> Builder<E> builder() {
+        return new Builder<>(null);
+    }
+
+    public static <E> Builder<E> builder(Comparator<? super E> comparator) {
+        return new Builder<>(comparator);
+    }
+
+    // Leaves the first of equal elements, returns number of distinct elements
+    private static <E> int distinct(E[] sorted, Comparator<? super E> comparator) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (CollectionUtils.compare(sorted[size - 1], sorted[i], comparator) != 0) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    private E get(int index) {
+        return reversed ? data[to - 1 - index] : data[from + index];
     }
 
     @Override
     public boolean contains(Object o) {
         //noinspection unchecked
-        return Collections.binarySearch(data, (E) o, comparator) >= 0;
+        return binarySearch((E) o) >= 0;
     }
 
     @Override
     public int size() {
-        return data.size();
+        return to - from;
     }
 
     @Override
     public Comparator<? super E> comparator() {
-        return comparator;
+        return reversed ? Collections.reverseOrder(comparator) : comparator;
     }
 
     @Override
     public E lower(E e) {
         int index = lowerBound(e, false);
-        return index == -1 ? null : data.get(index);
+        return index == -1 ? null : get(index);
 
     }
 
     @Override
     public E floor(E e) {
         int index = lowerBound(e, true);
-        return index == -1 ? null : data.get(index);
+        return index == -1 ? null : get(index);
     }
 
     @Override
     public E ceiling(E e) {
         int index = upperBound(e, true);
-        return index == size() ? null : data.get(index);
+        return index == size() ? null : get(index);
     }
 
     @Override
     public E higher(E e) {
         int index = upperBound(e, false);
-        return index == size() ? null : data.get(index);
+        return index == size() ? null : get(index);
     }
 
     @Override
@@ -101,7 +148,7 @@ public class ArraySet<E> extends AbstractSet<E>
         if (isEmpty()) {
             throw new NoSuchElementException();
         }
-        return data.get(0);
+        return get(0);
     }
 
     @Override
@@ -109,22 +156,41 @@ public class ArraySet<E> extends AbstractSet<E>
         if (isEmpty()) {
             throw new NoSuchElementException();
         }
-        return data.get(size() - 1);
+        return get(size() - 1);
     }
 
     @Override
     public Iterator<E> iterator() {
-        return Collections.unmodifiableList(data).iterator();
+        return iterator(reversed);
     }
 
     @Override
     public NavigableSet<E> descendingSet() {
-        return new ArraySet<>(CollectionUtils.reverseView(data), Collections.reverseOrder(comparator));
+        return new ArraySet<>(data, from, to, !reversed, comparator);
     }
 
     @Override
     public Iterator<E> descendingIterator() {
-        return descendingSet().iterator();
+        return iterator(!reversed);
+    }
+
+    private Iterator<E> iterator(boolean backward) {
+        return new Iterator<>() {
+            private int index = backward ? to - 1 : from;
+
+            @Override
+            public boolean hasNext() {
+                return from <= index && index < to;
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return backward ? data[index--] : data[index++];
+            }
+        };
     }
 
     @Override
@@ -165,7 +231,7 @@ public class ArraySet<E> extends AbstractSet<E>
     private NavigableSet<E> subSet(boolean fromStart, E fromElement, boolean fromInclusive,
                                    boolean toEnd, E toElement, boolean toInclusive) {
         if (!fromStart && !toEnd) {
-            if (CollectionUtils.compare(fromElement, toElement, comparator) > 0) {
+            if (compare(fromElement, toElement) > 0) {
                 throw new IllegalArgumentException();
             }
         }
@@ -174,32 +240,175 @@ public class ArraySet<E> extends AbstractSet<E>
         int r = toEnd ? size() - 1 : lowerBound(toElement, toInclusive);
 
         if (l > r) {
-            return emptySet();
+            return new ArraySet<>(data, from, from, reversed, comparator);
         }
 
-        return new ArraySet<>(data.subList(l, r + 1), comparator);
+        return reversed
+                ? new ArraySet<>(data, to - 1 - r, to - l, true, comparator)
+                : new ArraySet<>(data, from + l, from + r + 1, false, comparator);
 
     }
 
+    public ArraySet<E> union(ArraySet<E> other) {
+        checkComparator(other);
+        List<E> result = new ArrayList<>(size() + other.size());
+        int i = 0;
+        int j = 0;
+        while (i < size() && j < other.size()) {
+            int c = compare(get(i), other.get(j));
+            if (c <= 0) {
+                result.add(get(i++));
+                if (c == 0) {
+                    j++;
+                }
+            } else {
+                result.add(other.get(j++));
+            }
+        }
+        while (i < size()) {
+            result.add(get(i++));
+        }
+        while (j < other.size()) {
+            result.add(other.get(j++));
+        }
+        return ofSorted(result, comparator());
+    }
+
+    public ArraySet<E> intersection(ArraySet<E> other) {
+        checkComparator(other);
+        ArraySet<E> smaller = size() <= other.size() ? this : other;
+        ArraySet<E> larger = smaller == this ? other : this;
+        List<E> result = new ArrayList<>(smaller.size());
+        int index = 0;
+        for (E element : smaller) {
+            index = gallop(larger, index, element);
+            if (index == larger.size()) {
+                break;
+            }
+            if (compare(larger.get(index), element) == 0) {
+                result.add(element);
+            }
+        }
+        return ofSorted(result, comparator());
+    }
+
+    public ArraySet<E> difference(ArraySet<E> other) {
+        checkComparator(other);
+        List<E> result = new ArrayList<>(size());
+        int index = 0;
+        for (E element : this) {
+            index = gallop(other, index, element);
+            if (index == other.size() || compare(other.get(index), element) != 0) {
+                result.add(element);
+            }
+        }
+        return ofSorted(result, comparator());
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        if (c instanceof ArraySet && Objects.equals(comparator(), ((ArraySet<?>) c).comparator())) {
+            //noinspection unchecked
+            return containsAllSorted((ArraySet<E>) c);
+        }
+        return super.containsAll(c);
+    }
+
+    private boolean containsAllSorted(ArraySet<E> elements) {
+        int index = 0;
+        for (E element : elements) {
+            index = gallop(this, index, element);
+            if (index == size() || compare(get(index), element) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void checkComparator(ArraySet<E> other) {
+        if (!Objects.equals(comparator(), other.comparator())) {
+            throw new IllegalArgumentException("Sets must have the same comparator");
+        }
+    }
+
+    // Index of the first element of set not less than element, searched exponentially from index start
+    private int gallop(ArraySet<E> set, int start, E element) {
+        int low = start;
+        int step = 1;
+        while (low + step - 1 < set.size() && compare(set.get(low + step - 1), element) < 0) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(set.size(), low + step - 1);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(set.get(mid), element) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Compares in the order of this set
+    private int compare(E e1, E e2) {
+        return reversed
+                ? CollectionUtils.compare(e2, e1, comparator)
+                : CollectionUtils.compare(e1, e2, comparator);
+    }
+
+    // Searches the range of the view in the array, so the result is an array index
     private int binarySearch(E element) {
-        return Collections.binarySearch(data, element, comparator);
+        return Arrays.binarySearch(data, from, to, element, comparator);
     }
 
     private int lowerBound(E element, boolean inclusive) {
         int index = binarySearch(element);
-        return index < 0
-                ? -(index + 1) - 1
-                : (inclusive ? index : index - 1);
+        return reversed
+                ? to - 1 - (index < 0 ? -(index + 1) : (inclusive ? index : index + 1))
+                : (index < 0 ? -(index + 1) - 1 : (inclusive ? index : index - 1)) - from;
     }
 
 
     private int upperBound(E element, boolean inclusive) {
         int index = binarySearch(element);
-        return index < 0
-                ? -(index + 1)
-                : (inclusive ? index : index + 1);
+        return reversed
+                ? to - 1 - (index < 0 ? -(index + 1) - 1 : (inclusive ? index : index - 1))
+                : (index < 0 ? -(index + 1) : (inclusive ? index : index + 1)) - from;
     }
 
+    public static class Builder<E> {
+        private final Comparator<? super E> comparator;
+        private List<E> data = new ArrayList<>();
 
-}
+        private Builder(Comparator<? super E> comparator) {
+            this.comparator = comparator;
+        }
+
+        public Builder<E> add(E element) {
+            Objects.requireNonNull(element, "Set must not contain null");
+            if (!data.isEmpty() && CollectionUtils.compare(data.get(data.size() - 1), element, comparator) >= 0) {
+                throw new IllegalArgumentException("Elements must be strictly increasing");
+            }
+            data.add(element);
+            return this;
+        }
+
+        public Builder<E> addAll(Iterable<? extends E> elements) {
+            elements.forEach(this::add);
+            return this;
+        }
+
+        public Builder<E> addAll(Stream<? extends E> elements) {
+            elements.forEachOrdered(this::add);
+            return this;
+        }
 
+        public ArraySet<E> build() {
+            List<E> result = data;
+            data = new ArrayList<>();
+            return ofSorted(result, comparator);
+        }
+    }
+}
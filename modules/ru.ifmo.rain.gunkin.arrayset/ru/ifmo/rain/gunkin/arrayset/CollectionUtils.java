@@ -31,32 +31,4 @@ public class CollectionUtils {
             return comparator.compare(e1, e2);
         }
     }
-
-    public static <E> List<E> reverseView(List<E> list) {
-        return new ReverseList<>(list);
-    }
-
-    private static class ReverseList<E> extends AbstractList<E> {
-        private final List<E> forwardList;
-
-        private ReverseList(List<E> forwardList) {
-            this.forwardList = forwardList;
-        }
-
-        /**
-         * {@inheritDoc}
-         *
-         * @param index
-         * @throws IndexOutOfBoundsException {@inheritDoc}
-         */
-        @Override
-        public E get(int index) {
-            return forwardList.get(size() - 1 - index);
-        }
-
-        @Override
-        public int size() {
-            return forwardList.size();
-        }
-    }
 }
@@ -0,0 +1,393 @@
+package ru.ifmo.rain.gunkin.arrayset;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+
+public class FrontCodedStringSet extends AbstractSet<String>
+        implements NavigableSet<String> {
+
+    private static final int BLOCK_SIZE = 16;
+    private static final byte[] EMPTY = new byte[0];
+
+    // Keys are encoded by UTF-16 code units as in CESU-8, so unsigned byte order is String.compareTo order.
+    // Each block starts with a full key (length, bytes), every other key is stored as
+    // (length of prefix shared with the previous key, length of suffix, suffix bytes)
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int count;
+    private final int from;
+    private final int to;
+    private final boolean reversed;
+
+    public FrontCodedStringSet() {
+        this(List.of());
+    }
+
+    public FrontCodedStringSet(Collection<String> collection) {
+        ArraySet<String> sorted = new ArraySet<>(collection);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] blockOffsets = new int[(sorted.size() + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        byte[] previous = EMPTY;
+        int index = 0;
+        for (String element : sorted) {
+            byte[] key = encode(element);
+            if (index % BLOCK_SIZE == 0) {
+                blockOffsets[index / BLOCK_SIZE] = out.size();
+                writeVarInt(out, key.length);
+                out.write(key, 0, key.length);
+            } else {
+                int prefix = Arrays.mismatch(previous, key);
+                writeVarInt(out, prefix);
+                writeVarInt(out, key.length - prefix);
+                out.write(key, prefix, key.length - prefix);
+            }
+            previous = key;
+            index++;
+        }
+
+        this.data = out.toByteArray();
+        this.blockOffsets = blockOffsets;
+        this.count = sorted.size();
+        this.from = 0;
+        this.to = count;
+        this.reversed = false;
+    }
+
+    private FrontCodedStringSet(FrontCodedStringSet set, int from, int to, boolean reversed) {
+        this.data = set.data;
+        this.blockOffsets = set.blockOffsets;
+        this.count = set.count;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        byte[] key = encode((String) o);
+        int index = search(key, true);
+        return from <= index && index < to && cursorAt(index).compareTo(key) == 0;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Comparator<? super String> comparator() {
+        return reversed ? Collections.reverseOrder() : null;
+    }
+
+    @Override
+    public String lower(String e) {
+        return valueOrNull(reversed ? ceilingIndex(e, false) : floorIndex(e, false));
+    }
+
+    @Override
+    public String floor(String e) {
+        return valueOrNull(reversed ? ceilingIndex(e, true) : floorIndex(e, true));
+    }
+
+    @Override
+    public String ceiling(String e) {
+        return valueOrNull(reversed ? floorIndex(e, true) : ceilingIndex(e, true));
+    }
+
+    @Override
+    public String higher(String e) {
+        return valueOrNull(reversed ? floorIndex(e, false) : ceilingIndex(e, false));
+    }
+
+    @Override
+    public String pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return cursorAt(reversed ? to - 1 : from).decode();
+    }
+
+    @Override
+    public String last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return cursorAt(reversed ? from : to - 1).decode();
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return iterator(reversed);
+    }
+
+    @Override
+    public FrontCodedStringSet descendingSet() {
+        return new FrontCodedStringSet(this, from, to, !reversed);
+    }
+
+    @Override
+    public Iterator<String> descendingIterator() {
+        return iterator(!reversed);
+    }
+
+    private Iterator<String> iterator(boolean backward) {
+        return new Iterator<>() {
+            private int index = backward ? to - 1 : from;
+            private int block = -1;
+            private String[] elements;
+
+            @Override
+            public boolean hasNext() {
+                return from <= index && index < to;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (index / BLOCK_SIZE != block) {
+                    block = index / BLOCK_SIZE;
+                    elements = decodeBlock(block);
+                }
+                String element = elements[index % BLOCK_SIZE];
+                index += backward ? -1 : 1;
+                return element;
+            }
+        };
+    }
+
+    @Override
+    public FrontCodedStringSet subSet(String fromElement, boolean fromInclusive, String toElement, boolean toInclusive) {
+        int c = fromElement.compareTo(toElement);
+        if (reversed ? c < 0 : c > 0) {
+            throw new IllegalArgumentException();
+        }
+        return reversed
+                ? range(ceilingIndex(toElement, toInclusive), floorIndex(fromElement, fromInclusive) + 1)
+                : range(ceilingIndex(fromElement, fromInclusive), floorIndex(toElement, toInclusive) + 1);
+    }
+
+    @Override
+    public FrontCodedStringSet headSet(String toElement, boolean inclusive) {
+        return reversed
+                ? range(ceilingIndex(toElement, inclusive), to)
+                : range(from, floorIndex(toElement, inclusive) + 1);
+    }
+
+    @Override
+    public FrontCodedStringSet tailSet(String fromElement, boolean inclusive) {
+        return reversed
+                ? range(from, floorIndex(fromElement, inclusive) + 1)
+                : range(ceilingIndex(fromElement, inclusive), to);
+    }
+
+    @Override
+    public FrontCodedStringSet subSet(String fromElement, String toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public FrontCodedStringSet headSet(String toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public FrontCodedStringSet tailSet(String fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    private FrontCodedStringSet range(int l, int r) {
+        return new FrontCodedStringSet(this, l, Math.max(l, r), reversed);
+    }
+
+    private String valueOrNull(int index) {
+        return from <= index && index < to ? cursorAt(index).decode() : null;
+    }
+
+    private int floorIndex(String element, boolean inclusive) {
+        return Math.max(from, Math.min(to, search(encode(element), !inclusive))) - 1;
+    }
+
+    private int ceilingIndex(String element, boolean inclusive) {
+        return Math.max(from, Math.min(to, search(encode(element), inclusive)));
+    }
+
+    // Index of the first key of the whole set not less than (or greater than, if not inclusive) key.
+    // Block heads are found by binary search, then a single block is decoded
+    private int search(byte[] key, boolean inclusive) {
+        int low = 0;
+        int high = blockOffsets.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int c = compareHead(mid, key);
+            if (inclusive ? c < 0 : c <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return 0;
+        }
+
+        Cursor cursor = new Cursor(low - 1);
+        while (cursor.hasNextInBlock()) {
+            cursor.next();
+            int c = cursor.compareTo(key);
+            if (inclusive ? c >= 0 : c > 0) {
+                return cursor.index;
+            }
+        }
+        return cursor.index + 1;
+    }
+
+    private int compareHead(int block, byte[] key) {
+        int offset = blockOffsets[block];
+        int length = readVarInt(data, offset);
+        offset += varIntSize(length);
+        return Arrays.compareUnsigned(data, offset, offset + length, key, 0, key.length);
+    }
+
+    private Cursor cursorAt(int index) {
+        Cursor cursor = new Cursor(index / BLOCK_SIZE);
+        while (cursor.index < index) {
+            cursor.next();
+        }
+        return cursor;
+    }
+
+    private String[] decodeBlock(int block) {
+        Cursor cursor = new Cursor(block);
+        String[] elements = new String[Math.min(BLOCK_SIZE, count - block * BLOCK_SIZE)];
+        elements[0] = cursor.decode();
+        for (int i = 1; i < elements.length; i++) {
+            cursor.next();
+            elements[i] = cursor.decode();
+        }
+        return elements;
+    }
+
+    private static byte[] encode(String s) {
+        byte[] bytes = new byte[s.length() * 3];
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static String decode(byte[] bytes, int length) {
+        char[] chars = new char[length];
+        int count = 0;
+        for (int i = 0; i < length; ) {
+            int b = bytes[i++] & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if (b < 0xE0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | bytes[i++] & 0x3F);
+            } else {
+                chars[count++] = (char) ((b & 0x0F) << 12 | (bytes[i++] & 0x3F) << 6 | bytes[i++] & 0x3F);
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] bytes, int offset) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[offset++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // Walks keys of a block, restoring each key from the previous one
+    private class Cursor {
+        private byte[] key = EMPTY;
+        private int length;
+        private int offset;
+        private int index;
+
+        private Cursor(int block) {
+            this.offset = blockOffsets[block];
+            this.index = block * BLOCK_SIZE;
+            read(0, readVarInt());
+        }
+
+        private boolean hasNextInBlock() {
+            return index + 1 < count && (index + 1) % BLOCK_SIZE != 0;
+        }
+
+        private void next() {
+            int prefix = readVarInt();
+            read(prefix, readVarInt());
+            index++;
+        }
+
+        private void read(int prefix, int suffix) {
+            if (key.length < prefix + suffix) {
+                key = Arrays.copyOf(key, Math.max(prefix + suffix, key.length * 2));
+            }
+            System.arraycopy(data, offset, key, prefix, suffix);
+            offset += suffix;
+            length = prefix + suffix;
+        }
+
+        private int readVarInt() {
+            int value = FrontCodedStringSet.readVarInt(data, offset);
+            offset += varIntSize(value);
+            return value;
+        }
+
+        private int compareTo(byte[] other) {
+            return Arrays.compareUnsigned(key, 0, length, other, 0, other.length);
+        }
+
+        private String decode() {
+            return FrontCodedStringSet.decode(key, length);
+        }
+    }
+}
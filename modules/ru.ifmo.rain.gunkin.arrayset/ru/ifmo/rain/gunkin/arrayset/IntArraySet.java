@@ -0,0 +1,312 @@
+package ru.ifmo.rain.gunkin.arrayset;
+
+import java.util.*;
+
+public class IntArraySet extends AbstractSet<Integer>
+        implements NavigableSet<Integer> {
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final int[] data;
+    // Implicit B-tree over data: index[0] holds the last element of each block of data,
+    // every next level holds the last element of each block of the previous one
+    private final int[][] index;
+    private final int from;
+    private final int to;
+    private final boolean reversed;
+
+    public IntArraySet() {
+        this(new int[0], null, 0, 0, false);
+    }
+
+    public IntArraySet(int[] values) {
+        this(values, false);
+    }
+
+    public IntArraySet(int[] values, boolean indexed) {
+        int[] data = values.clone();
+        Arrays.sort(data);
+        int size = distinct(data);
+        this.data = size == data.length ? data : Arrays.copyOf(data, size);
+        this.index = indexed ? buildIndex(this.data) : null;
+        this.from = 0;
+        this.to = size;
+        this.reversed = false;
+    }
+
+    public IntArraySet(Collection<Integer> collection) {
+        this(collection.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private IntArraySet(int[] data, int[][] index, int from, int to, boolean reversed) {
+        this.data = data;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    private static int distinct(int[] sorted) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    private static int[][] buildIndex(int[] data) {
+        List<int[]> levels = new ArrayList<>();
+        int[] level = data;
+        while (level.length > BLOCK_SIZE) {
+            int[] upper = new int[(level.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+            for (int i = 0; i < upper.length; i++) {
+                upper[i] = level[Math.min(level.length, (i + 1) * BLOCK_SIZE) - 1];
+            }
+            levels.add(upper);
+            level = upper;
+        }
+        return levels.toArray(new int[0][]);
+    }
+
+    public boolean contains(int e) {
+        if (index == null) {
+            return Arrays.binarySearch(data, from, to, e) >= 0;
+        }
+        int i = search(e, true);
+        return from <= i && i < to && data[i] == e;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains((int) o);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return reversed ? Collections.reverseOrder() : null;
+    }
+
+    public int lower(int e, int absent) {
+        return valueOrDefault(reversed ? ceilingIndex(e, false) : floorIndex(e, false), absent);
+    }
+
+    public int floor(int e, int absent) {
+        return valueOrDefault(reversed ? ceilingIndex(e, true) : floorIndex(e, true), absent);
+    }
+
+    public int ceiling(int e, int absent) {
+        return valueOrDefault(reversed ? floorIndex(e, true) : ceilingIndex(e, true), absent);
+    }
+
+    public int higher(int e, int absent) {
+        return valueOrDefault(reversed ? floorIndex(e, false) : ceilingIndex(e, false), absent);
+    }
+
+    @Override
+    public Integer lower(Integer e) {
+        return valueOrNull(reversed ? ceilingIndex(e, false) : floorIndex(e, false));
+    }
+
+    @Override
+    public Integer floor(Integer e) {
+        return valueOrNull(reversed ? ceilingIndex(e, true) : floorIndex(e, true));
+    }
+
+    @Override
+    public Integer ceiling(Integer e) {
+        return valueOrNull(reversed ? floorIndex(e, true) : ceilingIndex(e, true));
+    }
+
+    @Override
+    public Integer higher(Integer e) {
+        return valueOrNull(reversed ? floorIndex(e, false) : ceilingIndex(e, false));
+    }
+
+    @Override
+    public Integer pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    public int firstInt() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return reversed ? data[to - 1] : data[from];
+    }
+
+    public int lastInt() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return reversed ? data[from] : data[to - 1];
+    }
+
+    @Override
+    public Integer first() {
+        return firstInt();
+    }
+
+    @Override
+    public Integer last() {
+        return lastInt();
+    }
+
+    public int[] toIntArray() {
+        int[] result = Arrays.copyOfRange(data, from, to);
+        if (reversed) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                int tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return reversed ? data[to - 1 - position++] : data[from + position++];
+            }
+        };
+    }
+
+    @Override
+    public IntArraySet descendingSet() {
+        return new IntArraySet(data, index, from, to, !reversed);
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    public IntArraySet subSet(int fromElement, boolean fromInclusive, int toElement, boolean toInclusive) {
+        if (reversed ? fromElement < toElement : fromElement > toElement) {
+            throw new IllegalArgumentException();
+        }
+        return reversed
+                ? range(ceilingIndex(toElement, toInclusive), floorIndex(fromElement, fromInclusive) + 1)
+                : range(ceilingIndex(fromElement, fromInclusive), floorIndex(toElement, toInclusive) + 1);
+    }
+
+    public IntArraySet headSet(int toElement, boolean inclusive) {
+        return reversed
+                ? range(ceilingIndex(toElement, inclusive), to)
+                : range(from, floorIndex(toElement, inclusive) + 1);
+    }
+
+    public IntArraySet tailSet(int fromElement, boolean inclusive) {
+        return reversed
+                ? range(from, floorIndex(fromElement, inclusive) + 1)
+                : range(ceilingIndex(fromElement, inclusive), to);
+    }
+
+    @Override
+    public IntArraySet subSet(Integer fromElement, boolean fromInclusive, Integer toElement, boolean toInclusive) {
+        return subSet((int) fromElement, fromInclusive, (int) toElement, toInclusive);
+    }
+
+    @Override
+    public IntArraySet headSet(Integer toElement, boolean inclusive) {
+        return headSet((int) toElement, inclusive);
+    }
+
+    @Override
+    public IntArraySet tailSet(Integer fromElement, boolean inclusive) {
+        return tailSet((int) fromElement, inclusive);
+    }
+
+    @Override
+    public IntArraySet subSet(Integer fromElement, Integer toElement) {
+        return subSet((int) fromElement, true, (int) toElement, false);
+    }
+
+    @Override
+    public IntArraySet headSet(Integer toElement) {
+        return headSet((int) toElement, false);
+    }
+
+    @Override
+    public IntArraySet tailSet(Integer fromElement) {
+        return tailSet((int) fromElement, true);
+    }
+
+    private IntArraySet range(int l, int r) {
+        return new IntArraySet(data, index, l, Math.max(l, r), reversed);
+    }
+
+    private int valueOrDefault(int index, int absent) {
+        return from <= index && index < to ? data[index] : absent;
+    }
+
+    private Integer valueOrNull(int index) {
+        return from <= index && index < to ? data[index] : null;
+    }
+
+    private int floorIndex(int element, boolean inclusive) {
+        if (index != null) {
+            return Math.max(from, Math.min(to, search(element, !inclusive))) - 1;
+        }
+        int i = Arrays.binarySearch(data, from, to, element);
+        return i < 0
+                ? -(i + 1) - 1
+                : (inclusive ? i : i - 1);
+    }
+
+    private int ceilingIndex(int element, boolean inclusive) {
+        if (index != null) {
+            return Math.max(from, Math.min(to, search(element, inclusive)));
+        }
+        int i = Arrays.binarySearch(data, from, to, element);
+        return i < 0
+                ? -(i + 1)
+                : (inclusive ? i : i + 1);
+    }
+
+    // Index of the first element of whole data not less than (or greater than, if not inclusive) element.
+    // Each step scans one block, so a lookup touches a cache line per level instead of one per comparison
+    private int search(int element, boolean inclusive) {
+        int block = 0;
+        for (int l = index.length - 1; l >= -1; l--) {
+            int[] level = l < 0 ? data : index[l];
+            int i = block * BLOCK_SIZE;
+            int end = Math.min(level.length, i + BLOCK_SIZE);
+            while (i < end && (inclusive ? level[i] < element : level[i] <= element)) {
+                i++;
+            }
+            if (i == end) {
+                return data.length;
+            }
+            block = i;
+        }
+        return block;
+    }
+}
@@ -0,0 +1,312 @@
+package ru.ifmo.rain.gunkin.arrayset;
+
+import java.util.*;
+
+public class LongArraySet extends AbstractSet<Long>
+        implements NavigableSet<Long> {
+
+    private static final int BLOCK_SIZE = 16;
+
+    private final long[] data;
+    // Implicit B-tree over data: index[0] holds the last element of each block of data,
+    // every next level holds the last element of each block of the previous one
+    private final long[][] index;
+    private final int from;
+    private final int to;
+    private final boolean reversed;
+
+    public LongArraySet() {
+        this(new long[0], null, 0, 0, false);
+    }
+
+    public LongArraySet(long[] values) {
+        this(values, false);
+    }
+
+    public LongArraySet(long[] values, boolean indexed) {
+        long[] data = values.clone();
+        Arrays.sort(data);
+        int size = distinct(data);
+        this.data = size == data.length ? data : Arrays.copyOf(data, size);
+        this.index = indexed ? buildIndex(this.data) : null;
+        this.from = 0;
+        this.to = size;
+        this.reversed = false;
+    }
+
+    public LongArraySet(Collection<Long> collection) {
+        this(collection.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private LongArraySet(long[] data, long[][] index, int from, int to, boolean reversed) {
+        this.data = data;
+        this.index = index;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    private static int distinct(long[] sorted) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) {
+                sorted[size++] = sorted[i];
+            }
+        }
+        return size;
+    }
+
+    private static long[][] buildIndex(long[] data) {
+        List<long[]> levels = new ArrayList<>();
+        long[] level = data;
+        while (level.length > BLOCK_SIZE) {
+            long[] upper = new long[(level.length + BLOCK_SIZE - 1) / BLOCK_SIZE];
+            for (int i = 0; i < upper.length; i++) {
+                upper[i] = level[Math.min(level.length, (i + 1) * BLOCK_SIZE) - 1];
+            }
+            levels.add(upper);
+            level = upper;
+        }
+        return levels.toArray(new long[0][]);
+    }
+
+    public boolean contains(long e) {
+        if (index == null) {
+            return Arrays.binarySearch(data, from, to, e) >= 0;
+        }
+        int i = search(e, true);
+        return from <= i && i < to && data[i] == e;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains((long) o);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return reversed ? Collections.reverseOrder() : null;
+    }
+
+    public long lower(long e, long absent) {
+        return valueOrDefault(reversed ? ceilingIndex(e, false) : floorIndex(e, false), absent);
+    }
+
+    public long floor(long e, long absent) {
+        return valueOrDefault(reversed ? ceilingIndex(e, true) : floorIndex(e, true), absent);
+    }
+
+    public long ceiling(long e, long absent) {
+        return valueOrDefault(reversed ? floorIndex(e, true) : ceilingIndex(e, true), absent);
+    }
+
+    public long higher(long e, long absent) {
+        return valueOrDefault(reversed ? floorIndex(e, false) : ceilingIndex(e, false), absent);
+    }
+
+    @Override
+    public Long lower(Long e) {
+        return valueOrNull(reversed ? ceilingIndex(e, false) : floorIndex(e, false));
+    }
+
+    @Override
+    public Long floor(Long e) {
+        return valueOrNull(reversed ? ceilingIndex(e, true) : floorIndex(e, true));
+    }
+
+    @Override
+    public Long ceiling(Long e) {
+        return valueOrNull(reversed ? floorIndex(e, true) : ceilingIndex(e, true));
+    }
+
+    @Override
+    public Long higher(Long e) {
+        return valueOrNull(reversed ? floorIndex(e, false) : ceilingIndex(e, false));
+    }
+
+    @Override
+    public Long pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Long pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    public long firstLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return reversed ? data[to - 1] : data[from];
+    }
+
+    public long lastLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return reversed ? data[from] : data[to - 1];
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    public long[] toLongArray() {
+        long[] result = Arrays.copyOfRange(data, from, to);
+        if (reversed) {
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                long tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < size();
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return reversed ? data[to - 1 - position++] : data[from + position++];
+            }
+        };
+    }
+
+    @Override
+    public LongArraySet descendingSet() {
+        return new LongArraySet(data, index, from, to, !reversed);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    public LongArraySet subSet(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        if (reversed ? fromElement < toElement : fromElement > toElement) {
+            throw new IllegalArgumentException();
+        }
+        return reversed
+                ? range(ceilingIndex(toElement, toInclusive), floorIndex(fromElement, fromInclusive) + 1)
+                : range(ceilingIndex(fromElement, fromInclusive), floorIndex(toElement, toInclusive) + 1);
+    }
+
+    public LongArraySet headSet(long toElement, boolean inclusive) {
+        return reversed
+                ? range(ceilingIndex(toElement, inclusive), to)
+                : range(from, floorIndex(toElement, inclusive) + 1);
+    }
+
+    public LongArraySet tailSet(long fromElement, boolean inclusive) {
+        return reversed
+                ? range(from, floorIndex(fromElement, inclusive) + 1)
+                : range(ceilingIndex(fromElement, inclusive), to);
+    }
+
+    @Override
+    public LongArraySet subSet(Long fromElement, boolean fromInclusive, Long toElement, boolean toInclusive) {
+        return subSet((long) fromElement, fromInclusive, (long) toElement, toInclusive);
+    }
+
+    @Override
+    public LongArraySet headSet(Long toElement, boolean inclusive) {
+        return headSet((long) toElement, inclusive);
+    }
+
+    @Override
+    public LongArraySet tailSet(Long fromElement, boolean inclusive) {
+        return tailSet((long) fromElement, inclusive);
+    }
+
+    @Override
+    public LongArraySet subSet(Long fromElement, Long toElement) {
+        return subSet((long) fromElement, true, (long) toElement, false);
+    }
+
+    @Override
+    public LongArraySet headSet(Long toElement) {
+        return headSet((long) toElement, false);
+    }
+
+    @Override
+    public LongArraySet tailSet(Long fromElement) {
+        return tailSet((long) fromElement, true);
+    }
+
+    private LongArraySet range(int l, int r) {
+        return new LongArraySet(data, index, l, Math.max(l, r), reversed);
+    }
+
+    private long valueOrDefault(int index, long absent) {
+        return from <= index && index < to ? data[index] : absent;
+    }
+
+    private Long valueOrNull(int index) {
+        return from <= index && index < to ? data[index] : null;
+    }
+
+    private int floorIndex(long element, boolean inclusive) {
+        if (index != null) {
+            return Math.max(from, Math.min(to, search(element, !inclusive))) - 1;
+        }
+        int i = Arrays.binarySearch(data, from, to, element);
+        return i < 0
+                ? -(i + 1) - 1
+                : (inclusive ? i : i - 1);
+    }
+
+    private int ceilingIndex(long element, boolean inclusive) {
+        if (index != null) {
+            return Math.max(from, Math.min(to, search(element, inclusive)));
+        }
+        int i = Arrays.binarySearch(data, from, to, element);
+        return i < 0
+                ? -(i + 1)
+                : (inclusive ? i : i + 1);
+    }
+
+    // Index of the first element of whole data not less than (or greater than, if not inclusive) element.
+    // Each step scans one block, so a lookup touches a cache line per level instead of one per comparison
+    private int search(long element, boolean inclusive) {
+        int block = 0;
+        for (int l = index.length - 1; l >= -1; l--) {
+            long[] level = l < 0 ? data : index[l];
+            int i = block * BLOCK_SIZE;
+            int end = Math.min(level.length, i + BLOCK_SIZE);
+            while (i < end && (inclusive ? level[i] < element : level[i] <= element)) {
+                i++;
+            }
+            if (i == end) {
+                return data.length;
+            }
+            block = i;
+        }
+        return block;
+    }
+}
@@ -0,0 +1,402 @@
+package ru.ifmo.rain.gunkin.arrayset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.LongStream;
+
+public class MappedLongSet extends AbstractSet<Long>
+        implements NavigableSet<Long> {
+
+    // File layout: magic, version, number of keys, then strictly increasing big-endian keys
+    private static final int MAGIC = 0x4C534554;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final long MAX_COUNT = (Long.MAX_VALUE - HEADER_SIZE) / Long.BYTES;
+    // A single mapping can't exceed 2GB, so large files are mapped by 1GB segments
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final ByteBuffer[] segments;
+    private final long from;
+    private final long to;
+    private final boolean reversed;
+
+    private MappedLongSet(ByteBuffer[] segments, long from, long to, boolean reversed) {
+        this.segments = segments;
+        this.from = from;
+        this.to = to;
+        this.reversed = reversed;
+    }
+
+    public static MappedLongSet open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a sorted key file: " + file);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a sorted key file: " + file);
+            }
+            long count = header.getLong();
+            if (count < 0 || count > MAX_COUNT || channel.size() != HEADER_SIZE + count * Long.BYTES) {
+                throw new IOException("Corrupted sorted key file: " + file);
+            }
+
+            long length = count * Long.BYTES;
+            ByteBuffer[] segments = new ByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0; i < segments.length; i++) {
+                long offset = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + offset,
+                        Math.min(SEGMENT_MASK + 1, length - offset));
+            }
+            return new MappedLongSet(segments, 0, count, false);
+        }
+    }
+
+    private long get(long index) {
+        long position = index * Long.BYTES;
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    public boolean contains(long e) {
+        long index = search(e, true);
+        return index < to && get(index) == e;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Long && contains((long) o);
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, longSize());
+    }
+
+    public long longSize() {
+        return to - from;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return from == to;
+    }
+
+    @Override
+    public Comparator<? super Long> comparator() {
+        return reversed ? Collections.reverseOrder() : null;
+    }
+
+    public long lower(long e, long absent) {
+        return valueOrDefault(reversed ? ceilingIndex(e, false) : floorIndex(e, false), absent);
+    }
+
+    public long floor(long e, long absent) {
+        return valueOrDefault(reversed ? ceilingIndex(e, true) : floorIndex(e, true), absent);
+    }
+
+    public long ceiling(long e, long absent) {
+        return valueOrDefault(reversed ? floorIndex(e, true) : ceilingIndex(e, true), absent);
+    }
+
+    public long higher(long e, long absent) {
+        return valueOrDefault(reversed ? floorIndex(e, false) : ceilingIndex(e, false), absent);
+    }
+
+    @Override
+    public Long lower(Long e) {
+        return valueOrNull(reversed ? ceilingIndex(e, false) : floorIndex(e, false));
+    }
+
+    @Override
+    public Long floor(Long e) {
+        return valueOrNull(reversed ? ceilingIndex(e, true) : floorIndex(e, true));
+    }
+
+    @Override
+    public Long ceiling(Long e) {
+        return valueOrNull(reversed ? floorIndex(e, true) : ceilingIndex(e, true));
+    }
+
+    @Override
+    public Long higher(Long e) {
+        return valueOrNull(reversed ? floorIndex(e, false) : ceilingIndex(e, false));
+    }
+
+    @Override
+    public Long pollFirst() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Long pollLast() {
+        throw new UnsupportedOperationException();
+    }
+
+    public long firstLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return reversed ? get(to - 1) : get(from);
+    }
+
+    public long lastLong() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return reversed ? get(from) : get(to - 1);
+    }
+
+    @Override
+    public Long first() {
+        return firstLong();
+    }
+
+    @Override
+    public Long last() {
+        return lastLong();
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new PrimitiveIterator.OfLong() {
+            private long position = 0;
+
+            @Override
+            public boolean hasNext() {
+                return position < longSize();
+            }
+
+            @Override
+            public long nextLong() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return reversed ? get(to - 1 - position++) : get(from + position++);
+            }
+        };
+    }
+
+    @Override
+    public MappedLongSet descendingSet() {
+        return new MappedLongSet(segments, from, to, !reversed);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return descendingSet().iterator();
+    }
+
+    public MappedLongSet subSet(long fromElement, boolean fromInclusive, long toElement, boolean toInclusive) {
+        if (reversed ? fromElement < toElement : fromElement > toElement) {
+            throw new IllegalArgumentException();
+        }
+        return reversed
+                ? range(ceilingIndex(toElement, toInclusive), floorIndex(fromElement, fromInclusive) + 1)
+                : range(ceilingIndex(fromElement, fromInclusive), floorIndex(toElement, toInclusive) + 1);
+    }
+
+    public MappedLongSet headSet(long toElement, boolean inclusive) {
+        return reversed
+                ? range(ceilingIndex(toElement, inclusive), to)
+                : range(from, floorIndex(toElement, inclusive) + 1);
+    }
+
+    public MappedLongSet tailSet(long fromElement, boolean inclusive) {
+        return reversed
+                ? range(from, floorIndex(fromElement, inclusive) + 1)
+                : range(ceilingIndex(fromElement, inclusive), to);
+    }
+
+    @Override
+    public MappedLongSet subSet(Long fromElement, boolean fromInclusive, Long toElement, boolean toInclusive) {
+        return subSet((long) fromElement, fromInclusive, (long) toElement, toInclusive);
+    }
+
+    @Override
+    public MappedLongSet headSet(Long toElement, boolean inclusive) {
+        return headSet((long) toElement, inclusive);
+    }
+
+    @Override
+    public MappedLongSet tailSet(Long fromElement, boolean inclusive) {
+        return tailSet((long) fromElement, inclusive);
+    }
+
+    @Override
+    public MappedLongSet subSet(Long fromElement, Long toElement) {
+        return subSet((long) fromElement, true, (long) toElement, false);
+    }
+
+    @Override
+    public MappedLongSet headSet(Long toElement) {
+        return headSet((long) toElement, false);
+    }
+
+    @Override
+    public MappedLongSet tailSet(Long fromElement) {
+        return tailSet((long) fromElement, true);
+    }
+
+    private MappedLongSet range(long l, long r) {
+        return new MappedLongSet(segments, l, Math.max(l, r), reversed);
+    }
+
+    private long valueOrDefault(long index, long absent) {
+        return from <= index && index < to ? get(index) : absent;
+    }
+
+    private Long valueOrNull(long index) {
+        return from <= index && index < to ? get(index) : null;
+    }
+
+    private long floorIndex(long element, boolean inclusive) {
+        return search(element, !inclusive) - 1;
+    }
+
+    private long ceilingIndex(long element, boolean inclusive) {
+        return search(element, inclusive);
+    }
+
+    // Index of the first key in range not less than (or greater than, if not inclusive) element
+    private long search(long element, boolean inclusive) {
+        long low = from;
+        long high = to;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            long key = get(mid);
+            if (inclusive ? key < element : key <= element) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Writes keys to a temporary file next to the target, which replaces the target on finish.
+    // Closing an unfinished writer discards everything written, so a failed write never leaves a file open() accepts
+    public static class Writer implements AutoCloseable {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long count;
+        private long last;
+        private boolean failed;
+        private boolean finished;
+
+        public Writer(Path file) throws IOException {
+            this.file = file.toAbsolutePath();
+            this.temp = Files.createTempFile(this.file.getParent(), this.file.getFileName().toString(), ".tmp");
+            try {
+                this.channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            try {
+                channel.write(ByteBuffer.allocate(HEADER_SIZE));
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        public Writer add(long key) throws IOException {
+            checkWritable();
+            if (count > 0 && key <= last) {
+                failed = true;
+                throw new IllegalArgumentException("Keys must be strictly increasing");
+            }
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.putLong(key);
+            last = key;
+            count++;
+            return this;
+        }
+
+        public Writer addAll(Iterable<Long> keys) throws IOException {
+            Iterator<Long> iterator = keys.iterator();
+            if (iterator instanceof PrimitiveIterator.OfLong) {
+                return addAll((PrimitiveIterator.OfLong) iterator);
+            }
+            while (iterator.hasNext()) {
+                add(iterator.next());
+            }
+            return this;
+        }
+
+        public Writer addAll(LongStream keys) throws IOException {
+            return addAll(keys.iterator());
+        }
+
+        private Writer addAll(PrimitiveIterator.OfLong keys) throws IOException {
+            while (keys.hasNext()) {
+                add(keys.nextLong());
+            }
+            return this;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+            buffer.clear();
+        }
+
+        private void checkWritable() {
+            if (finished || failed || !channel.isOpen()) {
+                throw new IllegalStateException("Writer is finished, closed or has failed");
+            }
+        }
+
+        // Completes the file and atomically moves it in place of the target
+        public void finish() throws IOException {
+            checkWritable();
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, HEADER_SIZE - header.remaining());
+            }
+            channel.force(true);
+            channel.close();
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            finished = true;
+        }
+
+        // Discards the written keys unless finish() has succeeded
+        @Override
+        public void close() throws IOException {
+            try {
+                channel.close();
+            } finally {
+                if (!finished) {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        }
+    }
+}
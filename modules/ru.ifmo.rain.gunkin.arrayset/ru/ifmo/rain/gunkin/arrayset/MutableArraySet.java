@@ -0,0 +1,652 @@
+package ru.ifmo.rain.gunkin.arrayset;
+
+import java.util.*;
+
+public class MutableArraySet<E> extends AbstractSet<E>
+        implements NavigableSet<E> {
+
+    private static final int MIN_BUFFER_SIZE = 32;
+
+    private final Comparator<? super E> comparator;
+    private List<E> data;
+    // Sorted elements absent from data
+    private final List<E> added = new ArrayList<>();
+    // Sorted elements of data, which are not in the set anymore
+    private final List<E> removed = new ArrayList<>();
+    private int modCount;
+
+    public MutableArraySet() {
+        this(List.of(), null);
+    }
+
+    public MutableArraySet(Comparator<? super E> comparator) {
+        this(List.of(), comparator);
+    }
+
+    public MutableArraySet(Collection<? extends E> collection) {
+        this(collection, null);
+    }
+
+    public MutableArraySet(Collection<? extends E> collection, Comparator<? super E> comparator) {
+        this.comparator = comparator;
+        this.data = new ArrayList<>(new ArraySet<>(collection, comparator));
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        //noinspection unchecked
+        E element = (E) o;
+        return binarySearch(added, element) >= 0
+                || binarySearch(data, element) >= 0 && binarySearch(removed, element) < 0;
+    }
+
+    @Override
+    public boolean add(E e) {
+        Objects.requireNonNull(e);
+        if (binarySearch(data, e) >= 0) {
+            int index = binarySearch(removed, e);
+            if (index < 0) {
+                return false;
+            }
+            removed.remove(index);
+        } else {
+            int index = binarySearch(added, e);
+            if (index >= 0) {
+                return false;
+            }
+            added.add(-(index + 1), e);
+        }
+        modCount++;
+        mergeIfFull();
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!removeBuffered(o)) {
+            return false;
+        }
+        mergeIfFull();
+        return true;
+    }
+
+    private boolean removeBuffered(Object o) {
+        //noinspection unchecked
+        E element = (E) o;
+        int index = binarySearch(added, element);
+        if (index >= 0) {
+            added.remove(index);
+        } else {
+            if (binarySearch(data, element) < 0) {
+                return false;
+            }
+            index = binarySearch(removed, element);
+            if (index >= 0) {
+                return false;
+            }
+            removed.add(-(index + 1), element);
+        }
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        data = new ArrayList<>();
+        added.clear();
+        removed.clear();
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return data.size() - removed.size() + added.size();
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return comparator;
+    }
+
+    @Override
+    public E lower(E e) {
+        return floorElement(e, false);
+    }
+
+    @Override
+    public E floor(E e) {
+        return floorElement(e, true);
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return ceilingElement(e, true);
+    }
+
+    @Override
+    public E higher(E e) {
+        return ceilingElement(e, false);
+    }
+
+    @Override
+    public E pollFirst() {
+        return isEmpty() ? null : poll(first());
+    }
+
+    @Override
+    public E pollLast() {
+        return isEmpty() ? null : poll(last());
+    }
+
+    private E poll(E element) {
+        remove(element);
+        return element;
+    }
+
+    @Override
+    public E first() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        int index = skipRemoved(0, 1);
+        E result = index == data.size() ? null : data.get(index);
+        if (!added.isEmpty() && (result == null || compare(added.get(0), result) < 0)) {
+            result = added.get(0);
+        }
+        return result;
+    }
+
+    @Override
+    public E last() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        int index = skipRemoved(data.size() - 1, -1);
+        E result = index < 0 ? null : data.get(index);
+        if (!added.isEmpty() && (result == null || compare(added.get(added.size() - 1), result) > 0)) {
+            result = added.get(added.size() - 1);
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new MergingIterator(false);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return new MergingIterator(true);
+    }
+
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return new SubSet(true, null, true, true, null, true, true);
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        if (CollectionUtils.compare(fromElement, toElement, comparator) > 0) {
+            throw new IllegalArgumentException();
+        }
+        return new SubSet(false, fromElement, fromInclusive, false, toElement, toInclusive, false);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        return new SubSet(true, null, true, false, toElement, inclusive, false);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        return new SubSet(false, fromElement, inclusive, true, null, true, false);
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+
+    private void mergeIfFull() {
+        if (added.size() + removed.size() > Math.max(MIN_BUFFER_SIZE, (int) Math.sqrt(data.size()))) {
+            merge();
+        }
+    }
+
+    private void merge() {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        List<E> merged = new ArrayList<>(size());
+        int addedIndex = 0;
+        int removedIndex = 0;
+        for (E element : data) {
+            if (removedIndex < removed.size() && compare(element, removed.get(removedIndex)) == 0) {
+                removedIndex++;
+                continue;
+            }
+            while (addedIndex < added.size() && compare(added.get(addedIndex), element) < 0) {
+                merged.add(added.get(addedIndex++));
+            }
+            merged.add(element);
+        }
+        merged.addAll(added.subList(addedIndex, added.size()));
+        data = merged;
+        added.clear();
+        removed.clear();
+    }
+
+    private E floorElement(E element, boolean inclusive) {
+        int index = binarySearch(data, element);
+        index = skipRemoved(index < 0 ? -(index + 1) - 1 : (inclusive ? index : index - 1), -1);
+        E result = index < 0 ? null : data.get(index);
+
+        index = binarySearch(added, element);
+        index = index < 0 ? -(index + 1) - 1 : (inclusive ? index : index - 1);
+        if (index >= 0 && (result == null || compare(added.get(index), result) > 0)) {
+            result = added.get(index);
+        }
+        return result;
+    }
+
+    private E ceilingElement(E element, boolean inclusive) {
+        int index = binarySearch(data, element);
+        index = skipRemoved(index < 0 ? -(index + 1) : (inclusive ? index : index + 1), 1);
+        E result = index == data.size() ? null : data.get(index);
+
+        index = binarySearch(added, element);
+        index = index < 0 ? -(index + 1) : (inclusive ? index : index + 1);
+        if (index < added.size() && (result == null || compare(added.get(index), result) < 0)) {
+            result = added.get(index);
+        }
+        return result;
+    }
+
+    // Index of the first element of data from index in direction of step, which is not removed.
+    // Removed elements are a subset of data, so a run of them in data is a run in removed too
+    private int skipRemoved(int index, int step) {
+        if (index < 0 || index >= data.size()) {
+            return index;
+        }
+        int r = binarySearch(removed, data.get(index));
+        if (r < 0) {
+            return index;
+        }
+        while (0 <= index && index < data.size() && 0 <= r && r < removed.size()
+                && compare(data.get(index), removed.get(r)) == 0) {
+            index += step;
+            r += step;
+        }
+        return index;
+    }
+
+    private int binarySearch(List<E> list, E element) {
+        return Collections.binarySearch(list, element, comparator);
+    }
+
+    private int compare(E e1, E e2) {
+        return CollectionUtils.compare(e1, e2, comparator);
+    }
+
+    // Merges data and added on the fly, skipping removed elements
+    private class MergingIterator implements Iterator<E> {
+        private final boolean backward;
+        private final int step;
+        private int dataIndex;
+        private int addedIndex;
+        private int removedIndex;
+        private int expectedModCount = modCount;
+        private E last;
+
+        private MergingIterator(boolean backward) {
+            this.backward = backward;
+            this.step = backward ? -1 : 1;
+            this.dataIndex = backward ? data.size() - 1 : 0;
+            this.addedIndex = backward ? added.size() - 1 : 0;
+            this.removedIndex = backward ? removed.size() - 1 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            skip();
+            return inRange(dataIndex, data) || inRange(addedIndex, added);
+        }
+
+        @Override
+        public E next() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            boolean fromAdded = !inRange(dataIndex, data) || inRange(addedIndex, added)
+                    && (backward ? compare(added.get(addedIndex), data.get(dataIndex)) > 0
+                    : compare(added.get(addedIndex), data.get(dataIndex)) < 0);
+            if (fromAdded) {
+                last = added.get(addedIndex);
+                addedIndex += step;
+            } else {
+                last = data.get(dataIndex);
+                dataIndex += step;
+            }
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            MutableArraySet.this.remove(last);
+            // Buffers may have been merged, so positions are found again after the removed element
+            dataIndex = after(data, last);
+            addedIndex = after(added, last);
+            removedIndex = after(removed, last);
+            expectedModCount = modCount;
+            last = null;
+        }
+
+        // Every removed element before dataIndex is before removedIndex, so a run of removed elements
+        // at dataIndex is the run of removed ones at removedIndex
+        private void skip() {
+            while (inRange(dataIndex, data) && inRange(removedIndex, removed)
+                    && compare(data.get(dataIndex), removed.get(removedIndex)) == 0) {
+                dataIndex += step;
+                removedIndex += step;
+            }
+        }
+
+        private int after(List<E> list, E element) {
+            int index = binarySearch(list, element);
+            if (backward) {
+                return index < 0 ? -(index + 1) - 1 : index - 1;
+            }
+            return index < 0 ? -(index + 1) : index + 1;
+        }
+
+        private boolean inRange(int index, List<E> list) {
+            return 0 <= index && index < list.size();
+        }
+    }
+
+    private class SubSet extends AbstractSet<E> implements NavigableSet<E> {
+        private final boolean fromStart;
+        private final E low;
+        private final boolean lowInclusive;
+        private final boolean toEnd;
+        private final E high;
+        private final boolean highInclusive;
+        private final boolean descending;
+
+        private SubSet(boolean fromStart, E low, boolean lowInclusive,
+                       boolean toEnd, E high, boolean highInclusive, boolean descending) {
+            this.fromStart = fromStart;
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.toEnd = toEnd;
+            this.high = high;
+            this.highInclusive = highInclusive;
+            this.descending = descending;
+        }
+
+        private boolean tooLow(E element) {
+            if (fromStart) {
+                return false;
+            }
+            int c = compare(element, low);
+            return c < 0 || c == 0 && !lowInclusive;
+        }
+
+        private boolean tooHigh(E element) {
+            if (toEnd) {
+                return false;
+            }
+            int c = compare(element, high);
+            return c > 0 || c == 0 && !highInclusive;
+        }
+
+        private boolean inRange(E element) {
+            return !tooLow(element) && !tooHigh(element);
+        }
+
+        private E checked(E element) {
+            return element == null || !inRange(element) ? null : element;
+        }
+
+        private E lowest() {
+            if (fromStart) {
+                return isParentEmpty() ? null : checked(MutableArraySet.this.first());
+            }
+            return checked(ceilingElement(low, lowInclusive));
+        }
+
+        private E highest() {
+            if (toEnd) {
+                return isParentEmpty() ? null : checked(MutableArraySet.this.last());
+            }
+            return checked(floorElement(high, highInclusive));
+        }
+
+        private boolean isParentEmpty() {
+            return MutableArraySet.this.isEmpty();
+        }
+
+        private E ceilingInRange(E element, boolean inclusive) {
+            return tooLow(element) ? lowest() : checked(ceilingElement(element, inclusive));
+        }
+
+        private E floorInRange(E element, boolean inclusive) {
+            return tooHigh(element) ? highest() : checked(floorElement(element, inclusive));
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            //noinspection unchecked
+            return inRange((E) o) && MutableArraySet.this.contains(o);
+        }
+
+        @Override
+        public boolean add(E e) {
+            if (!inRange(e)) {
+                throw new IllegalArgumentException();
+            }
+            return MutableArraySet.this.add(e);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            //noinspection unchecked
+            return inRange((E) o) && MutableArraySet.this.remove(o);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (E ignored : this) {
+                size++;
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return lowest() == null;
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return descending ? Collections.reverseOrder(comparator) : comparator;
+        }
+
+        @Override
+        public E lower(E e) {
+            return descending ? ceilingInRange(e, false) : floorInRange(e, false);
+        }
+
+        @Override
+        public E floor(E e) {
+            return descending ? ceilingInRange(e, true) : floorInRange(e, true);
+        }
+
+        @Override
+        public E ceiling(E e) {
+            return descending ? floorInRange(e, true) : ceilingInRange(e, true);
+        }
+
+        @Override
+        public E higher(E e) {
+            return descending ? floorInRange(e, false) : ceilingInRange(e, false);
+        }
+
+        @Override
+        public E pollFirst() {
+            E element = descending ? highest() : lowest();
+            return element == null ? null : poll(element);
+        }
+
+        @Override
+        public E pollLast() {
+            E element = descending ? lowest() : highest();
+            return element == null ? null : poll(element);
+        }
+
+        @Override
+        public E first() {
+            return existing(descending ? highest() : lowest());
+        }
+
+        @Override
+        public E last() {
+            return existing(descending ? lowest() : highest());
+        }
+
+        private E existing(E element) {
+            if (element == null) {
+                throw new NoSuchElementException();
+            }
+            return element;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return new SubSetIterator(descending);
+        }
+
+        @Override
+        public Iterator<E> descendingIterator() {
+            return new SubSetIterator(!descending);
+        }
+
+        @Override
+        public NavigableSet<E> descendingSet() {
+            return new SubSet(fromStart, low, lowInclusive, toEnd, high, highInclusive, !descending);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+            if (CollectionUtils.compare(fromElement, toElement, comparator()) > 0) {
+                throw new IllegalArgumentException();
+            }
+            return descending
+                    ? bounded(false, toElement, toInclusive, false, fromElement, fromInclusive)
+                    : bounded(false, fromElement, fromInclusive, false, toElement, toInclusive);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+            return descending
+                    ? bounded(false, toElement, inclusive, true, null, true)
+                    : bounded(true, null, true, false, toElement, inclusive);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+            return descending
+                    ? bounded(true, null, true, false, fromElement, inclusive)
+                    : bounded(false, fromElement, inclusive, true, null, true);
+        }
+
+        @Override
+        public NavigableSet<E> subSet(E fromElement, E toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public NavigableSet<E> headSet(E toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public NavigableSet<E> tailSet(E fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        private SubSet bounded(boolean newFromStart, E newLow, boolean newLowInclusive,
+                               boolean newToEnd, E newHigh, boolean newHighInclusive) {
+            if (newFromStart || !fromStart && compare(low, newLow) > 0) {
+                newFromStart = fromStart;
+                newLow = low;
+                newLowInclusive = lowInclusive;
+            } else if (!fromStart && compare(low, newLow) == 0) {
+                newLowInclusive &= lowInclusive;
+            }
+            if (newToEnd || !toEnd && compare(high, newHigh) < 0) {
+                newToEnd = toEnd;
+                newHigh = high;
+                newHighInclusive = highInclusive;
+            } else if (!toEnd && compare(high, newHigh) == 0) {
+                newHighInclusive &= highInclusive;
+            }
+            return new SubSet(newFromStart, newLow, newLowInclusive, newToEnd, newHigh, newHighInclusive, descending);
+        }
+
+        private class SubSetIterator implements Iterator<E> {
+            private final boolean backward;
+            private E next;
+            private E last;
+
+            private SubSetIterator(boolean backward) {
+                this.backward = backward;
+                this.next = backward ? highest() : lowest();
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public E next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = backward ? floorInRange(last, false) : ceilingInRange(last, false);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                MutableArraySet.this.remove(last);
+                last = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ru.ifmo.rain.gunkin.arrayset.test;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import ru.ifmo.rain.gunkin.arrayset.FrontCodedStringSet;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class FrontCodedStringSetTest {
+    // Keys of a block share the block, so sizes around multiples of it check block boundaries
+    private static final int BLOCK_SIZE = 16;
+    private static final String[] PIECES = {
+            "", "a", "b", "ab", "abc", "z", "\u0000", "\u007F", "\u0080", "\u00E9", "\u044F", "\u07FF", "\u0800",
+            "\u4E2D", "\uD7FF", "\uD83D\uDE00", "\uD83D\uDE01", "\uDBFF\uDFFF", "\uE000", "\uFFFF"
+    };
+
+    private static String randomKey(Random random) {
+        StringBuilder builder = new StringBuilder();
+        int pieces = random.nextInt(5);
+        for (int i = 0; i < pieces; i++) {
+            builder.append(PIECES[random.nextInt(PIECES.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static TreeSet<String> randomKeys(int size, Random random) {
+        TreeSet<String> keys = new TreeSet<>();
+        while (keys.size() < size) {
+            keys.add(randomKey(random));
+        }
+        return keys;
+    }
+
+    private static List<String> queries(Collection<String> keys, Random random) {
+        List<String> queries = new ArrayList<>(keys);
+        for (int i = 0; i < 50; i++) {
+            queries.add(randomKey(random));
+        }
+        // Keys one code unit shorter or longer than stored ones
+        for (String key : keys) {
+            if (!key.isEmpty()) {
+                queries.add(key.substring(0, key.length() - 1));
+            }
+            queries.add(key + "\u0000");
+            queries.add(key + "\uFFFF");
+        }
+        return queries;
+    }
+
+    private static void checkNavigation(NavigableSet<String> expected, NavigableSet<String> actual,
+                                        List<String> queries) {
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(actual));
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        List<String> descending = new ArrayList<>();
+        actual.descendingIterator().forEachRemaining(descending::add);
+        assertEquals(new ArrayList<>(expected.descendingSet()), descending);
+        if (!expected.isEmpty()) {
+            assertEquals(expected.first(), actual.first());
+            assertEquals(expected.last(), actual.last());
+        }
+        for (String query : queries) {
+            assertEquals(query, expected.contains(query), actual.contains(query));
+            assertEquals(query, expected.floor(query), actual.floor(query));
+            assertEquals(query, expected.ceiling(query), actual.ceiling(query));
+            assertEquals(query, expected.lower(query), actual.lower(query));
+            assertEquals(query, expected.higher(query), actual.higher(query));
+        }
+    }
+
+    private static void checkViews(NavigableSet<String> expected, NavigableSet<String> actual,
+                                   List<String> queries, Random random, int depth) {
+        checkNavigation(expected, actual, queries);
+        if (depth == 0) {
+            return;
+        }
+        checkViews(expected.descendingSet(), actual.descendingSet(), queries, random, depth - 1);
+        for (int i = 0; i < 3; i++) {
+            String a = queries.get(random.nextInt(queries.size()));
+            String b = queries.get(random.nextInt(queries.size()));
+            String low = expected.comparator() == null ? min(a, b) : max(a, b);
+            String high = low.equals(a) ? b : a;
+            boolean lowInclusive = random.nextBoolean();
+            boolean highInclusive = random.nextBoolean();
+            // Views of TreeSet reject bounds outside of their range
+            if (inRange(expected, low) && inRange(expected, high)) {
+                checkViews(expected.subSet(low, lowInclusive, high, highInclusive),
+                        actual.subSet(low, lowInclusive, high, highInclusive), queries, random, depth - 1);
+                assertEquals(new ArrayList<>(expected.subSet(low, high)), new ArrayList<>(actual.subSet(low, high)));
+            }
+            if (inRange(expected, a)) {
+                checkViews(expected.headSet(a, lowInclusive), actual.headSet(a, lowInclusive), queries, random, depth - 1);
+                assertEquals(new ArrayList<>(expected.headSet(a)), new ArrayList<>(actual.headSet(a)));
+            }
+            if (inRange(expected, b)) {
+                checkViews(expected.tailSet(b, highInclusive), actual.tailSet(b, highInclusive), queries, random, depth - 1);
+                assertEquals(new ArrayList<>(expected.tailSet(b)), new ArrayList<>(actual.tailSet(b)));
+            }
+        }
+    }
+
+    private static boolean inRange(NavigableSet<String> set, String key) {
+        try {
+            set.headSet(key, true);
+            set.tailSet(key, true);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String min(String a, String b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static String max(String a, String b) {
+        return a.compareTo(b) <= 0 ? b : a;
+    }
+
+    @Test
+    public void test01_empty() {
+        FrontCodedStringSet set = new FrontCodedStringSet();
+
+        checkNavigation(new TreeSet<>(), set, List.of("", "a"));
+        assertTrue(set.subSet("a", "b").isEmpty());
+    }
+
+    @Test
+    public void test02_roundTrip() {
+        Random random = new Random(2);
+        for (int size : new int[]{1, 2, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, 2 * BLOCK_SIZE,
+                2 * BLOCK_SIZE + 1, 1000}) {
+            TreeSet<String> expected = randomKeys(size, random);
+            List<String> shuffled = new ArrayList<>(expected);
+            Collections.shuffle(shuffled, random);
+            shuffled.addAll(shuffled.subList(0, size / 2));
+
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(new FrontCodedStringSet(shuffled)));
+        }
+    }
+
+    @Test
+    public void test03_navigation() {
+        Random random = new Random(3);
+        for (int size : new int[]{1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, 3 * BLOCK_SIZE, 200}) {
+            TreeSet<String> expected = randomKeys(size, random);
+            checkNavigation(expected, new FrontCodedStringSet(expected), queries(expected, random));
+        }
+    }
+
+    @Test
+    public void test04_views() {
+        Random random = new Random(4);
+        for (int size : new int[]{BLOCK_SIZE, 3 * BLOCK_SIZE + 1, 100}) {
+            TreeSet<String> expected = randomKeys(size, random);
+            List<String> queries = queries(expected, random);
+            checkViews(expected, new FrontCodedStringSet(expected), queries, random, 2);
+        }
+    }
+
+    @Test
+    public void test05_sharedPrefixes() {
+        TreeSet<String> expected = new TreeSet<>();
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < 5 * BLOCK_SIZE; i++) {
+            expected.add(key.toString());
+            key.append(PIECES[1 + i % (PIECES.length - 1)]);
+        }
+        for (String prefix : List.of("prefix", "\u044F\u044F", "\uD83D\uDE00")) {
+            for (int i = 0; i < 3 * BLOCK_SIZE; i++) {
+                expected.add(prefix + i);
+                expected.add(prefix + i + "\uD83D\uDE00");
+            }
+        }
+
+        Random random = new Random(5);
+        checkViews(expected, new FrontCodedStringSet(expected), queries(expected, random), random, 1);
+    }
+
+    @Test
+    public void test06_blockBoundaries() {
+        TreeSet<String> expected = randomKeys(10 * BLOCK_SIZE, new Random(6));
+        FrontCodedStringSet set = new FrontCodedStringSet(expected);
+
+        List<String> keys = new ArrayList<>(expected);
+        for (int i = 0; i < keys.size(); i += BLOCK_SIZE) {
+            for (int index : new int[]{i - 1, i, i + 1}) {
+                if (0 <= index && index < keys.size()) {
+                    String key = keys.get(index);
+                    assertTrue(key, set.contains(key));
+                    assertEquals(key, set.floor(key));
+                    assertEquals(expected.lower(key), set.lower(key));
+                    assertEquals(expected.higher(key), set.higher(key));
+                    assertEquals(new ArrayList<>(expected.headSet(key)), new ArrayList<>(set.headSet(key)));
+                    assertEquals(new ArrayList<>(expected.tailSet(key, false)),
+                            new ArrayList<>(set.tailSet(key, false)));
+                    assertEquals(new ArrayList<>(expected.descendingSet().headSet(key, true)),
+                            new ArrayList<>(set.descendingSet().headSet(key, true)));
+                }
+            }
+        }
+    }
+}
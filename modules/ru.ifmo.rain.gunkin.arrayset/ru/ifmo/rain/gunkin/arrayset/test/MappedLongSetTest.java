@@ -0,0 +1,138 @@
+package ru.ifmo.rain.gunkin.arrayset.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import ru.ifmo.rain.gunkin.arrayset.MappedLongSet;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MappedLongSetTest {
+    private Path dir;
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory(MappedLongSetTest.class.getSimpleName());
+        file = dir.resolve("keys");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private void write(LongStream keys) throws IOException {
+        try (MappedLongSet.Writer writer = new MappedLongSet.Writer(file)) {
+            writer.addAll(keys);
+            writer.finish();
+        }
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void test01_roundTrip() throws IOException {
+        Random random = new Random(1);
+        TreeSet<Long> expected = random.longs(100_000).boxed().collect(Collectors.toCollection(TreeSet::new));
+        write(expected.stream().mapToLong(Long::longValue));
+
+        MappedLongSet set = MappedLongSet.open(file);
+        assertEquals(expected.size(), set.size());
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        assertEquals(new ArrayList<>(expected.descendingSet()), new ArrayList<>(set.descendingSet()));
+        for (int i = 0; i < 1000; i++) {
+            long key = random.nextLong();
+            assertEquals(expected.contains(key), set.contains(key));
+            assertEquals(expected.floor(key), set.floor(key));
+            assertEquals(expected.higher(key), set.higher(key));
+        }
+        assertEquals(List.of(file), files());
+    }
+
+    @Test
+    public void test02_emptyRoundTrip() throws IOException {
+        write(LongStream.empty());
+
+        MappedLongSet set = MappedLongSet.open(file);
+        assertTrue(set.isEmpty());
+        assertNull(set.ceiling(0L));
+    }
+
+    @Test
+    public void test03_rangeViews() throws IOException {
+        write(LongStream.range(0, 100).map(x -> x * 2));
+
+        MappedLongSet set = MappedLongSet.open(file);
+        assertEquals(List.of(10L, 12L, 14L), new ArrayList<>(set.subSet(9L, 15L)));
+        assertEquals(List.of(14L, 12L, 10L), new ArrayList<>(set.descendingSet().subSet(15L, 9L)));
+        assertEquals(List.of(4L, 2L, 0L), new ArrayList<>(set.descendingSet().tailSet(4L)));
+        assertEquals(List.of(0L, 2L), new ArrayList<>(set.headSet(3L)));
+    }
+
+    @Test
+    public void test04_failedWriteLeavesNoFile() throws IOException {
+        try (MappedLongSet.Writer writer = new MappedLongSet.Writer(file)) {
+            writer.add(1).add(2).add(3).add(2);
+            writer.finish();
+            fail("Decreasing key was accepted");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        assertTrue(files().isEmpty());
+    }
+
+    @Test
+    public void test05_failedWriteKeepsPreviousFile() throws IOException {
+        write(LongStream.of(1, 2, 3, 4));
+
+        try (MappedLongSet.Writer writer = new MappedLongSet.Writer(file)) {
+            writer.add(5).add(6).add(5);
+            writer.finish();
+            fail("Decreasing key was accepted");
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), new ArrayList<>(MappedLongSet.open(file)));
+        assertEquals(List.of(file), files());
+    }
+
+    @Test
+    public void test06_unfinishedWriteLeavesNoFile() throws IOException {
+        try (MappedLongSet.Writer writer = new MappedLongSet.Writer(file)) {
+            writer.addAll(LongStream.range(0, 100_000));
+        }
+
+        assertTrue(files().isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test07_finishAfterFailure() throws IOException {
+        try (MappedLongSet.Writer writer = new MappedLongSet.Writer(file)) {
+            try {
+                writer.add(2).add(1);
+            } catch (IllegalArgumentException ignored) {
+            }
+            writer.finish();
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package ru.ifmo.rain.gunkin.arrayset.test;
+
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import ru.ifmo.rain.gunkin.arrayset.MutableArraySet;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class MutableArraySetTest {
+    private static final int SIZE = 100_000;
+    // Quadratic implementations take seconds on SIZE elements
+    private static final long TIMEOUT = 2_000;
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    private static List<Integer> shuffled(int size, long seed) {
+        List<Integer> values = range(size);
+        Collections.shuffle(values, new Random(seed));
+        return values;
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test01_pollFirstDrainsInOrder() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(shuffled(SIZE, 1));
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(Integer.valueOf(i), set.pollFirst());
+        }
+        assertTrue(set.isEmpty());
+        assertNull(set.pollFirst());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test02_pollLastDrainsInOrder() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(shuffled(SIZE, 2));
+
+        for (int i = SIZE - 1; i >= 0; i--) {
+            assertEquals(Integer.valueOf(i), set.pollLast());
+        }
+        assertTrue(set.isEmpty());
+        assertNull(set.pollLast());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test03_firstAndLastSeeBufferedChanges() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(range(SIZE));
+
+        for (int i = 0; i < 20_000; i++) {
+            set.add(-i - 1);
+            assertEquals(Integer.valueOf(-i - 1), set.first());
+            set.add(SIZE + i);
+            assertEquals(Integer.valueOf(SIZE + i), set.last());
+        }
+    }
+
+    @Test
+    public void test04_pollMatchesTreeSet() {
+        Random random = new Random(4);
+        MutableArraySet<Integer> set = new MutableArraySet<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(1000);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.add(value), set.add(value));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(value), set.remove(value));
+                    break;
+                case 2:
+                    assertEquals(expected.pollFirst(), set.pollFirst());
+                    break;
+                default:
+                    assertEquals(expected.pollLast(), set.pollLast());
+            }
+            assertEquals(expected.size(), set.size());
+            if (!expected.isEmpty()) {
+                assertEquals(expected.first(), set.first());
+                assertEquals(expected.last(), set.last());
+            }
+        }
+    }
+
+    @Test
+    public void test05_iteratorsMergeBuffers() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(range(100));
+        TreeSet<Integer> expected = new TreeSet<>(range(100));
+        for (int i = 0; i < 10; i++) {
+            set.remove(i * 7);
+            expected.remove(i * 7);
+            set.add(1000 - i * 13);
+            expected.add(1000 - i * 13);
+        }
+
+        assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        List<Integer> descending = new ArrayList<>();
+        set.descendingIterator().forEachRemaining(descending::add);
+        assertEquals(new ArrayList<>(expected.descendingSet()), descending);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test06_iteratorRemovesEverySecond() {
+        checkIteratorRemove(false);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test07_descendingIteratorRemovesEverySecond() {
+        checkIteratorRemove(true);
+    }
+
+    private static void checkIteratorRemove(boolean descending) {
+        MutableArraySet<Integer> set = new MutableArraySet<>(range(SIZE));
+        for (int i = 0; i < 40; i++) {
+            set.add(SIZE + i * 2);
+        }
+
+        Iterator<Integer> iterator = descending ? set.descendingIterator() : set.iterator();
+        int seen = 0;
+        while (iterator.hasNext()) {
+            int value = iterator.next();
+            if (value % 2 == 0) {
+                iterator.remove();
+            }
+            seen++;
+        }
+
+        assertEquals(SIZE + 40, seen);
+        assertEquals(SIZE / 2, set.size());
+        int expected = 1;
+        for (int value : set) {
+            assertEquals(expected, value);
+            expected += 2;
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void test08_iteratorRemovesAll() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(range(SIZE));
+
+        Iterator<Integer> iterator = set.descendingIterator();
+        while (iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    public void test09_iteratorRemoveMatchesTreeSet() {
+        Random random = new Random(9);
+        for (int round = 0; round < 200; round++) {
+            List<Integer> values = shuffled(random.nextInt(500), round);
+            MutableArraySet<Integer> set = new MutableArraySet<>(values.subList(0, values.size() / 2));
+            TreeSet<Integer> expected = new TreeSet<>(values.subList(0, values.size() / 2));
+            for (int value : values.subList(values.size() / 2, values.size())) {
+                set.add(value);
+                expected.add(value);
+            }
+
+            boolean descending = random.nextBoolean();
+            Iterator<Integer> actualIterator = descending ? set.descendingIterator() : set.iterator();
+            Iterator<Integer> expectedIterator = descending ? expected.descendingIterator() : expected.iterator();
+            while (expectedIterator.hasNext()) {
+                assertTrue(actualIterator.hasNext());
+                assertEquals(expectedIterator.next(), actualIterator.next());
+                if (random.nextInt(3) == 0) {
+                    actualIterator.remove();
+                    expectedIterator.remove();
+                }
+            }
+            assertFalse(actualIterator.hasNext());
+            assertEquals(new ArrayList<>(expected), new ArrayList<>(set));
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void test10_iteratorFailsAfterModification() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(range(10));
+
+        Iterator<Integer> iterator = set.iterator();
+        iterator.next();
+        set.add(100);
+        iterator.next();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test11_iteratorRemoveTwice() {
+        MutableArraySet<Integer> set = new MutableArraySet<>(range(10));
+
+        Iterator<Integer> iterator = set.iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.remove();
+    }
+}
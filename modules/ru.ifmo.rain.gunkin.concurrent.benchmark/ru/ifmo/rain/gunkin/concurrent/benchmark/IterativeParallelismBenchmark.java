@@ -0,0 +1,108 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP;
+import org.openjdk.jmh.annotations.*;
+import ru.ifmo.rain.gunkin.concurrent.IterativeParallelism;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperImpl;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Operations of {@link IterativeParallelism} with every backend.
+ * <ul>
+ *     <li>{@code threads} &mdash; new threads are started for each operation;</li>
+ *     <li>{@code mapper} &mdash; operations are run by {@link ParallelMapperImpl} with {@code threads} workers;</li>
+ *     <li>{@code pool} &mdash; operations are run by the common {@code ForkJoinPool}.</li>
+ * </ul>
+ * Zero {@code threads} stands for {@link IterativeParallelism#AUTO_THREADS}.
+ * Compare with {@link StreamBaselineBenchmark}, which runs the same operations sequentially and with {@code parallelStream()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class IterativeParallelismBenchmark {
+    @Param({"threads", "mapper", "pool"})
+    private String backend;
+
+    @Param({"0", "1", "2", "4", "8"})
+    private int threads;
+
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    @Param({"0", "100"})
+    private long cost;
+
+    private ParallelMapperImpl mapper;
+    private IterativeParallelism parallelism;
+    private List<Integer> values;
+    private Comparator<Integer> comparator;
+    private Predicate<Integer> predicate;
+    private Function<Integer, Integer> function;
+    private Function<Integer, Long> lift;
+    private AdvancedIP.Monoid<Long> monoid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (backend) {
+            case "threads":
+                parallelism = new IterativeParallelism();
+                break;
+            case "mapper":
+                mapper = new ParallelMapperImpl(threads == IterativeParallelism.AUTO_THREADS
+                        ? Runtime.getRuntime().availableProcessors() : threads);
+                parallelism = new IterativeParallelism(mapper);
+                break;
+            case "pool":
+                parallelism = IterativeParallelism.withCommonPool();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+        values = Workload.values(size);
+        comparator = Workload.comparator(cost);
+        predicate = Workload.predicate(cost);
+        function = Workload.function(cost);
+        lift = Workload.lift(cost);
+        monoid = Workload.sum();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (mapper != null) {
+            mapper.close();
+        }
+    }
+
+    @Benchmark
+    public Integer maximum() throws InterruptedException {
+        return parallelism.maximum(threads, values, comparator);
+    }
+
+    @Benchmark
+    public List<Integer> filter() throws InterruptedException {
+        return parallelism.filter(threads, values, predicate);
+    }
+
+    @Benchmark
+    public List<Integer> map() throws InterruptedException {
+        return parallelism.map(threads, values, function);
+    }
+
+    @Benchmark
+    public String join() throws InterruptedException {
+        return parallelism.join(threads, values);
+    }
+
+    @Benchmark
+    public Long mapReduce() throws InterruptedException {
+        return parallelism.mapReduce(threads, values, lift, monoid);
+    }
+}
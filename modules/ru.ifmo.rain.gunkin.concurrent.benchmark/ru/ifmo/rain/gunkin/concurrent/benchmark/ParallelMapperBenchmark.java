@@ -0,0 +1,78 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Throughput of {@link ParallelMapperImpl#map} as the number of workers grows.
+ * Short tasks stress the scheduler itself. Several client threads share one mapper to show contention.
+ * <p>
+ * {@link #mapSkewed()} puts the same total work into every {@code workers}-th element. Elements are dealt
+ * to worker queues round-robin, so all of it lands in one queue, and the other workers only get it by stealing.
+ * It runs a single client, because interleaved submissions of several clients would spread the work again.
+ * With {@code batching}, each range mixes heavy and light elements, so the skew is evened out before stealing.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ParallelMapperBenchmark {
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int workers;
+
+    @Param({"false", "true"})
+    private boolean batching;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"0", "100"})
+    private long cost;
+
+    private ParallelMapperImpl mapper;
+    private List<Integer> values;
+    private Function<Integer, Integer> function;
+    private List<Integer> indices;
+    private Function<Integer, Integer> skewedFunction;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = new ParallelMapperImpl(workers, batching);
+        values = Workload.values(size);
+        function = Workload.function(cost);
+
+        int queues = workers;
+        long heavyCost = cost * workers;
+        indices = Workload.indices(size);
+        skewedFunction = index -> {
+            if (index % queues == 0) {
+                Blackhole.consumeCPU(heavyCost);
+            }
+            return index * 31 + 7;
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mapper.close();
+    }
+
+    @Benchmark
+    public List<Integer> map() throws InterruptedException {
+        return mapper.map(function, values);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Integer> mapSkewed() throws InterruptedException {
+        return mapper.map(skewedFunction, indices);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.ifmo.rain.gunkin.concurrent.IterativeParallelism;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperImpl;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of running an empty part on each backend of {@link IterativeParallelism}, from handing it over
+ * to getting its result back. Minimal part sizes of {@link IterativeParallelism#AUTO_THREADS} are chosen
+ * to be several times these costs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PartOverheadBenchmark {
+    private static final List<Integer> ONE = List.of(1);
+
+    private ExecutorService executor;
+    private ParallelMapperImpl mapper;
+    private volatile int sink;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        mapper = new ParallelMapperImpl(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        mapper.close();
+    }
+
+    @Benchmark
+    public void threadStartJoin() throws InterruptedException {
+        Thread thread = new Thread(() -> sink++);
+        thread.start();
+        thread.join();
+    }
+
+    @Benchmark
+    public Integer executorHandoff() throws InterruptedException, ExecutionException {
+        return executor.submit(() -> sink++).get();
+    }
+
+    @Benchmark
+    public Integer commonPoolHandoff() throws InterruptedException, ExecutionException {
+        return ForkJoinPool.commonPool().submit(() -> sink++).get();
+    }
+
+    @Benchmark
+    public List<Integer> mapperHandoff() throws InterruptedException {
+        return mapper.map(x -> x, ONE);
+    }
+}
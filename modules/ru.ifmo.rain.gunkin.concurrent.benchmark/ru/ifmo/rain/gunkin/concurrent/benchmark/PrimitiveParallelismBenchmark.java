@@ -0,0 +1,77 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP;
+import org.openjdk.jmh.annotations.*;
+import ru.ifmo.rain.gunkin.concurrent.IterativeParallelism;
+import ru.ifmo.rain.gunkin.concurrent.PrimitiveParallelism;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Aggregations over {@code int[]} by {@link PrimitiveParallelism} against the same aggregations
+ * over boxed values by {@link IterativeParallelism}. Both run on the common {@code ForkJoinPool}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PrimitiveParallelismBenchmark {
+    @Param({"1", "4", "8"})
+    private int threads;
+
+    @Param({"1000", "100000", "10000000"})
+    private int size;
+
+    private PrimitiveParallelism primitive;
+    private IterativeParallelism boxed;
+    private int[] array;
+    private List<Integer> values;
+    private final Function<Integer, Long> lift = Integer::longValue;
+    private final AdvancedIP.Monoid<Long> monoid = Workload.sum();
+    private final Function<Integer, Integer> isEven = value -> (value & 1) == 0 ? 1 : 0;
+    private final AdvancedIP.Monoid<Integer> count = new AdvancedIP.Monoid<>(0, Integer::sum);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        primitive = new PrimitiveParallelism(ForkJoinPool.commonPool());
+        boxed = IterativeParallelism.withCommonPool();
+        array = Workload.intValues(size);
+        values = Workload.values(size);
+    }
+
+    @Benchmark
+    public int primitiveMaximum() throws InterruptedException {
+        return primitive.maximum(threads, array);
+    }
+
+    @Benchmark
+    public Integer boxedMaximum() throws InterruptedException {
+        return boxed.maximum(threads, values, Comparator.naturalOrder());
+    }
+
+    @Benchmark
+    public long primitiveSum() throws InterruptedException {
+        return primitive.sum(threads, array);
+    }
+
+    @Benchmark
+    public Long boxedSum() throws InterruptedException {
+        return boxed.mapReduce(threads, values, lift, monoid);
+    }
+
+    @Benchmark
+    public int primitiveCountIf() throws InterruptedException {
+        return primitive.countIf(threads, array, value -> (value & 1) == 0);
+    }
+
+    @Benchmark
+    public Integer boxedCountIf() throws InterruptedException {
+        return boxed.mapReduce(threads, values, isEven, count);
+    }
+}
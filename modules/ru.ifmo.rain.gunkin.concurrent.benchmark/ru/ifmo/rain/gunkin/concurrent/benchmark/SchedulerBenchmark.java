@@ -0,0 +1,65 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperImpl;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Throughput of per-worker queues with work stealing ({@link ParallelMapperImpl}) against
+ * the former single shared queue ({@link SingleQueueParallelMapper}) as the number of workers grows.
+ * Every element is a separate task, so short tasks show the cost of taking a task from the queue.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class SchedulerBenchmark {
+    @Param({"stealing", "single-queue"})
+    private String scheduler;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int workers;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"0", "100", "10000"})
+    private long cost;
+
+    private ParallelMapper mapper;
+    private List<Integer> values;
+    private Function<Integer, Integer> function;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (scheduler) {
+            case "stealing":
+                mapper = new ParallelMapperImpl(workers);
+                break;
+            case "single-queue":
+                mapper = new SingleQueueParallelMapper(workers);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown scheduler: " + scheduler);
+        }
+        values = Workload.values(size);
+        function = Workload.function(cost);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mapper.close();
+    }
+
+    @Benchmark
+    public List<Integer> map() throws InterruptedException {
+        return mapper.map(function, values);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Baselines for {@link IterativeParallelismBenchmark}: the same operations on the same values,
+ * performed by a plain loop and by {@code parallelStream()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StreamBaselineBenchmark {
+    @Param({"100", "10000", "1000000"})
+    private int size;
+
+    @Param({"0", "100"})
+    private long cost;
+
+    private List<Integer> values;
+    private Comparator<Integer> comparator;
+    private Predicate<Integer> predicate;
+    private Function<Integer, Integer> function;
+    private Function<Integer, Long> lift;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = Workload.values(size);
+        comparator = Workload.comparator(cost);
+        predicate = Workload.predicate(cost);
+        function = Workload.function(cost);
+        lift = Workload.lift(cost);
+    }
+
+    @Benchmark
+    public Integer sequentialMaximum() {
+        Integer result = values.get(0);
+        for (Integer value : values) {
+            if (comparator.compare(value, result) > 0) {
+                result = value;
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Integer> sequentialFilter() {
+        List<Integer> result = new ArrayList<>();
+        for (Integer value : values) {
+            if (predicate.test(value)) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Integer> sequentialMap() {
+        List<Integer> result = new ArrayList<>(values.size());
+        for (Integer value : values) {
+            result.add(function.apply(value));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String sequentialJoin() {
+        StringBuilder result = new StringBuilder();
+        for (Integer value : values) {
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    @Benchmark
+    public Long sequentialMapReduce() {
+        long result = 0;
+        for (Integer value : values) {
+            result += lift.apply(value);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Integer parallelStreamMaximum() {
+        return values.parallelStream().max(comparator).get();
+    }
+
+    @Benchmark
+    public List<Integer> parallelStreamFilter() {
+        return values.parallelStream().filter(predicate).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Integer> parallelStreamMap() {
+        return values.parallelStream().map(function).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public String parallelStreamJoin() {
+        return values.parallelStream().map(String::valueOf).collect(Collectors.joining());
+    }
+
+    @Benchmark
+    public Long parallelStreamMapReduce() {
+        return values.parallelStream().map(lift).reduce(0L, Long::sum);
+    }
+}
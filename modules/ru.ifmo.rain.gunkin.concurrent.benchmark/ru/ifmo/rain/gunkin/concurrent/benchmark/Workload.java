@@ -0,0 +1,75 @@
+package ru.ifmo.rain.gunkin.concurrent.benchmark;
+
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Values and functions shared by benchmarks. Cost of a function call is measured in
+ * {@link Blackhole#consumeCPU(long)} tokens, so it does not depend on the data and is not optimized away.
+ */
+final class Workload {
+    private static final long SEED = 2020;
+
+    private Workload() {
+    }
+
+    static List<Integer> values(int size) {
+        Random random = new Random(SEED);
+        List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(random.nextInt());
+        }
+        return values;
+    }
+
+    static List<Integer> indices(int size) {
+        List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+
+    static int[] intValues(int size) {
+        return new Random(SEED).ints(size).toArray();
+    }
+
+    static Comparator<Integer> comparator(long cost) {
+        return (a, b) -> {
+            Blackhole.consumeCPU(cost);
+            return Integer.compare(a, b);
+        };
+    }
+
+    static Predicate<Integer> predicate(long cost) {
+        return value -> {
+            Blackhole.consumeCPU(cost);
+            return (value & 1) == 0;
+        };
+    }
+
+    static Function<Integer, Integer> function(long cost) {
+        return value -> {
+            Blackhole.consumeCPU(cost);
+            return value * 31 + 7;
+        };
+    }
+
+    static Function<Integer, Long> lift(long cost) {
+        return value -> {
+            Blackhole.consumeCPU(cost);
+            return (long) value;
+        };
+    }
+
+    static AdvancedIP.Monoid<Long> sum() {
+        return new AdvancedIP.Monoid<>(0L, Long::sum);
+    }
+}
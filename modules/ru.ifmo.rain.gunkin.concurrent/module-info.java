@@ -1,6 +1,8 @@
 module ru.ifmo.rain.gunkin.concurrent {
     requires info.kgeorgiy.java.advanced.concurrent;
     requires info.kgeorgiy.java.advanced.mapper;
+    requires junit;
 
     exports ru.ifmo.rain.gunkin.concurrent;
-}
\ No newline at end of file
+    exports ru.ifmo.rain.gunkin.concurrent.test;
+}
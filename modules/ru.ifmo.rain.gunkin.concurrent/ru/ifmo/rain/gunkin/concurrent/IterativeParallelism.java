@@ -4,21 +4,52 @@ import info.kgeorgiy.java.advanced.concurrent.AdvancedIP;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @SuppressWarnings("OptionalGetWithoutIsPresent")
 public class IterativeParallelism implements AdvancedIP {
 
+    /**
+     * Number of threads, which lets operations choose number of threads themselves, from the number of values,
+     * the number of available processors and the measured cost of first values.
+     * Operations on few or cheap values are performed on the calling thread.
+     */
+    public static final int AUTO_THREADS = 0;
+
+    private static final int AUTO_SAMPLE_SIZE = 64;
+    // Each part should do at least three times more work than it costs to run it, so that the overhead
+    // takes at most a quarter of its time. Measured with PartOverheadBenchmark (Xeon 2.1GHz, JDK 17):
+    // starting and joining a thread takes 67-111us, handing a part to a pool or a ParallelMapper
+    // and getting its result takes 4-12us
+    private static final long THREAD_MIN_PART_NANOS = 250_000;
+    private static final long POOL_MIN_PART_NANOS = 25_000;
+    // Cost of an element for operations, which can't sample it: per element, maximum takes 7-18ns,
+    // filter 11-45ns, map 53-135ns and join 97-242ns on the same machine
+    private static final long DEFAULT_ELEMENT_NANOS = 50;
+    private static final int SPLITTER_OVERSAMPLING = 8;
+
     private final ParallelMapper mapper;
+    private final ExecutorService executor;
 
     /**
      * Creates an instance of {@code IterativeParallelism} without {@code ParallelMapper}.
+     * New threads are started for each operation.
      */
     public IterativeParallelism() {
         this.mapper = null;
+        this.executor = null;
     }
 
     /**
@@ -29,6 +60,30 @@ public class IterativeParallelism implements AdvancedIP {
      */
     public IterativeParallelism(ParallelMapper mapper) {
         this.mapper = mapper;
+        this.executor = null;
+    }
+
+    /**
+     * Creates an instance of {@code IterativeParallelism}, which runs parts on threads
+     * of specified {@code executor} instead of starting new threads.
+     * The executor is not shut down by this instance.
+     *
+     * @param executor the {@code ExecutorService}
+     */
+    public IterativeParallelism(ExecutorService executor) {
+        this.mapper = null;
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * Creates an instance of {@code IterativeParallelism}, which runs parts on
+     * {@link ForkJoinPool#commonPool() common pool}. The pool is started lazily and shared by all instances,
+     * so no threads are created per operation.
+     *
+     * @return the {@code IterativeParallelism}
+     */
+    public static IterativeParallelism withCommonPool() {
+        return new IterativeParallelism(ForkJoinPool.commonPool());
     }
 
     /**
@@ -40,7 +95,7 @@ public class IterativeParallelism implements AdvancedIP {
      * @return maximum of given values
      * @throws InterruptedException     if executing thread was interrupted.
      * @throws NoSuchElementException   if not values are given.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T> T maximum(int threads, List<? extends T> values, Comparator<? super T> comparator) throws InterruptedException {
@@ -56,7 +111,7 @@ public class IterativeParallelism implements AdvancedIP {
      * @return minimum of given values
      * @throws InterruptedException     if executing thread was interrupted.
      * @throws NoSuchElementException   if not values are given.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T> T minimum(int threads, List<? extends T> values, Comparator<? super T> comparator) throws InterruptedException {
@@ -73,7 +128,7 @@ public class IterativeParallelism implements AdvancedIP {
      * @param predicate test predicate.
      * @return whether all values satisfies predicate or {@code true}, if no values are given.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T> boolean all(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
@@ -82,21 +137,89 @@ public class IterativeParallelism implements AdvancedIP {
 
     /**
      * Returns whether any of values satisfies predicate.
+     * All threads stop as soon as one of them finds a satisfying value.
      *
      * @param threads   number or advanced.concurrent threads.
      * @param values    values to test.
      * @param predicate test predicate.
      * @return whether any value satisfies predicate or {@code false}, if no values are given.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T> boolean any(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
+        AtomicBoolean found = new AtomicBoolean();
         return parallelStreamMap(threads, values,
-                stream -> stream.anyMatch(predicate),
+                stream -> {
+                    if (stream.anyMatch(value -> found.get() || predicate.test(value))) {
+                        found.set(true);
+                        return true;
+                    }
+                    return false;
+                },
                 resultStream -> resultStream.anyMatch(Boolean::booleanValue));
     }
 
+    /**
+     * Returns any value satisfying predicate.
+     * All threads stop as soon as one of them finds a satisfying value.
+     *
+     * @param threads   number or concurrent threads.
+     * @param values    values to search in.
+     * @param predicate test predicate.
+     * @return some value satisfying predicate or empty {@code Optional}, if there is no such value.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
+     * @throws NullPointerException     if found value is {@code null}.
+     * @throws RuntimeException        thrown by {@code predicate}, with exceptions of other threads suppressed.
+     */
+    public <T> Optional<T> findAny(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
+        AtomicBoolean found = new AtomicBoolean();
+        return parallelStreamMap(threads, values,
+                stream -> {
+                    Optional<T> result = stream.takeWhile(value -> !found.get())
+                            .filter(predicate)
+                            .findFirst()
+                            .map(Function.identity());
+                    result.ifPresent(value -> found.set(true));
+                    return result;
+                },
+                resultStream -> resultStream.flatMap(Optional::stream).findFirst());
+    }
+
+    /**
+     * Returns first value satisfying predicate.
+     * Threads stop as soon as a satisfying value is found before their parts.
+     *
+     * @param threads   number or concurrent threads.
+     * @param values    values to search in.
+     * @param predicate test predicate.
+     * @return first value satisfying predicate or empty {@code Optional}, if there is no such value.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
+     * @throws NullPointerException     if found value is {@code null}.
+     * @throws RuntimeException        thrown by {@code predicate}, with exceptions of other threads suppressed.
+     */
+    public <T> Optional<T> findFirst(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
+        AtomicInteger firstIndex = new AtomicInteger(values.size());
+        parallelPartMap(threads, values,
+                part -> {
+                    int index = part.offset;
+                    Iterator<? extends T> it = part.values().iterator();
+                    while (it.hasNext() && index < firstIndex.get()) {
+                        if (predicate.test(it.next())) {
+                            firstIndex.accumulateAndGet(index, Math::min);
+                            break;
+                        }
+                        index++;
+                    }
+                    return null;
+                },
+                resultStream -> null);
+        int index = firstIndex.get();
+        return index < values.size() ? Optional.of(values.get(index)) : Optional.empty();
+    }
+
     /**
      * Join values to string.
      *
@@ -104,13 +227,18 @@ public class IterativeParallelism implements AdvancedIP {
      * @param values  values to join.
      * @return list of joined result of {@link #toString()} call on each value.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public String join(int threads, List<?> values) throws InterruptedException {
         return parallelStreamMap(threads, values,
                 stream -> stream.map(Object::toString).collect(Collectors.joining()),
-                resultStream -> resultStream.collect(Collectors.joining()));
+                resultStream -> {
+                    List<String> parts = resultStream.collect(Collectors.toList());
+                    StringBuilder builder = new StringBuilder(parts.stream().mapToInt(String::length).sum());
+                    parts.forEach(builder::append);
+                    return builder.toString();
+                });
     }
 
     /**
@@ -119,15 +247,16 @@ public class IterativeParallelism implements AdvancedIP {
      * @param threads   number of advanced.concurrent threads.
      * @param values    values to filter.
      * @param predicate filter predicate.
-     * @return list of values satisfying given predicated. Order of values is preserved.
+     * @return unmodifiable list of values satisfying given predicated. Order of values is preserved.
+     * The list is a view over the filtered parts, so values are not copied again.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T> List<T> filter(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
         return parallelStreamMap(threads, values,
-                stream -> stream.filter(predicate).collect(Collectors.toList()),
-                resultStream -> resultStream.flatMap(Collection::stream).collect(Collectors.toList()));
+                stream -> stream.filter(predicate).collect(Collectors.<T>toList()),
+                resultStream -> new ConcatenatedList<>(resultStream.collect(Collectors.toList())));
     }
 
     /**
@@ -136,15 +265,23 @@ public class IterativeParallelism implements AdvancedIP {
      * @param threads number of advanced.concurrent threads.
      * @param values  values to filter.
      * @param f       mapper function.
-     * @return list of values mapped by given function.
+     * @return fixed-size list of values mapped by given function.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T, U> List<U> map(int threads, List<? extends T> values, Function<? super T, ? extends U> f) throws InterruptedException {
-        return parallelStreamMap(threads, values,
-                stream -> stream.map(f).collect(Collectors.toList()),
-                resultStream -> resultStream.flatMap(Collection::stream).collect(Collectors.toList()));
+        Object[] result = new Object[values.size()];
+        parallelPartMap(threads, values,
+                part -> {
+                    int index = part.offset;
+                    for (T value : part.values()) {
+                        result[index++] = f.apply(value);
+                    }
+                    return null;
+                },
+                resultStream -> null);
+        return asList(result);
     }
 
     /**
@@ -155,7 +292,7 @@ public class IterativeParallelism implements AdvancedIP {
      * @param monoid  monoid to use.
      * @return values reduced by provided monoid or {@link Monoid#getIdentity() identity} if not values specified.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T> T reduce(int threads, List<T> values, Monoid<T> monoid) throws InterruptedException {
@@ -171,7 +308,7 @@ public class IterativeParallelism implements AdvancedIP {
      * @param monoid  monoid to use.
      * @return values reduced by provided monoid or {@link Monoid#getIdentity() identity} if not values specified.
      * @throws InterruptedException     if executing thread was interrupted.
-     * @throws IllegalArgumentException if number of threads less than 1.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
      */
     @Override
     public <T, R> R mapReduce(int threads, List<T> values, Function<T, R> lift, Monoid<R> monoid) throws InterruptedException {
@@ -180,29 +317,450 @@ public class IterativeParallelism implements AdvancedIP {
                 resultStream -> resultStream.reduce(monoid.getOperator()).get());
     }
 
+    /**
+     * Returns all prefix reductions of values using monoid.
+     * Each part is reduced by its own thread, then each part computes its prefixes
+     * starting from the reduction of all previous parts.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to scan.
+     * @param monoid  monoid to use.
+     * @return list, which {@code i}-th element is reduction of first {@code i + 1} values.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
+     */
+    public <T> List<T> scan(int threads, List<T> values, Monoid<T> monoid) throws InterruptedException {
+        checkThreads(threads);
+        BinaryOperator<T> operator = monoid.getOperator();
+        List<Part<T>> parts = divideList(values, 0, threads == AUTO_THREADS ? autoThreads(values.size()) : threads);
+
+        List<T> partReductions = parallelApply(parts,
+                part -> part.values().stream().reduce(monoid.getIdentity(), operator),
+                resultStream -> resultStream.collect(Collectors.toList()));
+        List<T> partOffsets = new ArrayList<>(parts.size());
+        T total = monoid.getIdentity();
+        for (T reduction : partReductions) {
+            partOffsets.add(total);
+            total = operator.apply(total, reduction);
+        }
+
+        Object[] result = new Object[values.size()];
+        parallelRangeMap(Math.max(1, parts.size()), parts.size(),
+                (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        T accumulator = partOffsets.get(i);
+                        int index = parts.get(i).offset;
+                        for (T value : parts.get(i).values()) {
+                            accumulator = operator.apply(accumulator, value);
+                            result[index++] = accumulator;
+                        }
+                    }
+                    return null;
+                },
+                resultStream -> null);
+        return asList(result);
+    }
+
+    /**
+     * Reduces each window of consecutive values using monoid.
+     * Values are divided into blocks of {@code window} size, and each window is reduced from a suffix of
+     * one block and a prefix of the next one, so each value is passed to the monoid a constant number of times.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to reduce.
+     * @param window  number of values in a window.
+     * @param monoid  monoid to use.
+     * @return list, which {@code i}-th element is reduction of values from {@code i} to {@code i + window - 1}.
+     * Empty list, if there are less than {@code window} values.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if {@code window} or number of threads less than 1, except {@link #AUTO_THREADS} threads.
+     */
+    public <T> List<T> windowReduce(int threads, List<T> values, int window, Monoid<T> monoid) throws InterruptedException {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window can't be less than one");
+        }
+        checkThreads(threads);
+        BinaryOperator<T> operator = monoid.getOperator();
+        List<T> data = values instanceof RandomAccess ? values : new ArrayList<>(values);
+        int size = data.size();
+        if (size < window) {
+            return List.of();
+        }
+
+        Object[] prefixes = new Object[size];
+        Object[] suffixes = new Object[size];
+        parallelRangeMap(threads, (size + window - 1) / window,
+                (fromBlock, toBlock) -> {
+                    for (int block = fromBlock; block < toBlock; block++) {
+                        int from = block * window;
+                        int to = Math.min(size, from + window);
+                        T prefix = monoid.getIdentity();
+                        for (int i = from; i < to; i++) {
+                            prefix = operator.apply(prefix, data.get(i));
+                            prefixes[i] = prefix;
+                        }
+                        T suffix = monoid.getIdentity();
+                        for (int i = to - 1; i >= from; i--) {
+                            suffix = operator.apply(data.get(i), suffix);
+                            suffixes[i] = suffix;
+                        }
+                    }
+                    return null;
+                },
+                resultStream -> null);
+
+        List<T> prefixList = asList(prefixes);
+        List<T> suffixList = asList(suffixes);
+        Object[] result = new Object[size - window + 1];
+        parallelRangeMap(threads, result.length,
+                (from, to) -> {
+                    for (int i = from; i < to; i++) {
+                        result[i] = i % window == 0
+                                ? prefixList.get(i + window - 1)
+                                : operator.apply(suffixList.get(i), prefixList.get(i + window - 1));
+                    }
+                    return null;
+                },
+                resultStream -> null);
+        return asList(result);
+    }
+
+    /**
+     * Sorts values. Each part is sorted by its own thread, then sorted parts are merged in parallel.
+     * The sort is stable.
+     *
+     * @param threads    number of concurrent threads.
+     * @param values     values to sort.
+     * @param comparator value comparator.
+     * @return new list of sorted values.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
+     */
+    public <T> List<T> sort(int threads, List<? extends T> values, Comparator<? super T> comparator) throws InterruptedException {
+        List<List<T>> runs = parallelPartMap(threads, values,
+                part -> {
+                    List<T> run = new ArrayList<>(part.values());
+                    run.sort(comparator);
+                    return run;
+                },
+                resultStream -> resultStream.collect(Collectors.toList()));
+        return mergeRuns(threads, runs, comparator);
+    }
+
+    /**
+     * Merges sorted lists. Values equal by comparator keep the order of the lists they come from.
+     *
+     * @param threads    number of concurrent threads.
+     * @param lists      lists sorted by {@code comparator}.
+     * @param comparator value comparator.
+     * @return new sorted list of values from all lists.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link #AUTO_THREADS}.
+     */
+    public <T> List<T> mergeSorted(int threads, List<? extends List<? extends T>> lists,
+                                   Comparator<? super T> comparator) throws InterruptedException {
+        checkThreads(threads);
+        List<List<? extends T>> runs = lists.stream()
+                .map(list -> list instanceof RandomAccess ? list : new ArrayList<>(list))
+                .collect(Collectors.toList());
+        return mergeRuns(threads, runs, comparator);
+    }
+
+    /**
+     * Merges sorted runs. Splitters sampled from the runs divide values into disjoint segments,
+     * each segment is merged from all runs by its own thread directly into its place in the result.
+     * Segments are bounded by the number of values per run, so splitting costs
+     * {@code O(size + runs)} whatever the number of threads is.
+     */
+    private <T> List<T> mergeRuns(int threads, List<? extends List<? extends T>> allRuns,
+                                  Comparator<? super T> comparator) throws InterruptedException {
+        List<? extends List<? extends T>> runs = allRuns.stream()
+                .filter(run -> !run.isEmpty())
+                .collect(Collectors.toList());
+        int size = runs.stream().mapToInt(List::size).sum();
+        if (threads == AUTO_THREADS) {
+            threads = autoThreads(size);
+        }
+        int segments = Math.min(threads, Math.max(1, size / Math.max(1, runs.size())));
+        List<T> splitters = sampleSplitters(segments, size, runs, comparator);
+
+        int[][] bounds = new int[splitters.size() + 2][runs.size()];
+        int[] offsets = new int[splitters.size() + 2];
+        for (int j = 0; j < runs.size(); j++) {
+            for (int i = 0; i < splitters.size(); i++) {
+                bounds[i + 1][j] = lowerBound(runs.get(j), splitters.get(i), comparator);
+            }
+            bounds[splitters.size() + 1][j] = runs.get(j).size();
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = Arrays.stream(bounds[i]).sum();
+        }
+
+        Object[] result = new Object[size];
+        parallelRangeMap(splitters.size() + 1, splitters.size() + 1,
+                (from, to) -> {
+                    for (int segment = from; segment < to; segment++) {
+                        mergeSegment(runs, bounds[segment], bounds[segment + 1], result, offsets[segment], comparator);
+                    }
+                    return null;
+                },
+                resultStream -> null);
+
+        return asList(result);
+    }
+
+    /**
+     * Chooses {@code count - 1} splitters from {@link #SPLITTER_OVERSAMPLING} samples per segment,
+     * taken from each run in proportion to its size.
+     */
+    private static <T> List<T> sampleSplitters(int count, int size, List<? extends List<? extends T>> runs,
+                                               Comparator<? super T> comparator) {
+        List<T> samples = new ArrayList<>();
+        if (count > 1) {
+            long sampleCount = (long) count * SPLITTER_OVERSAMPLING;
+            for (List<? extends T> run : runs) {
+                int runSamples = (int) Math.min(run.size(), (sampleCount * run.size() + size - 1) / size);
+                for (int i = 0; i < runSamples; i++) {
+                    samples.add(run.get((int) ((long) run.size() * i / runSamples)));
+                }
+            }
+            samples.sort(comparator);
+        }
+
+        List<T> splitters = new ArrayList<>();
+        for (int i = 1; i < count && !samples.isEmpty(); i++) {
+            splitters.add(samples.get((int) ((long) samples.size() * i / count)));
+        }
+        return splitters;
+    }
+
+    private static <T> void mergeSegment(List<? extends List<? extends T>> runs, int[] from, int[] to,
+                                         Object[] result, int offset, Comparator<? super T> comparator) {
+        int[] positions = from.clone();
+        PriorityQueue<Integer> heads = new PriorityQueue<>((a, b) -> {
+            int cmp = comparator.compare(runs.get(a).get(positions[a]), runs.get(b).get(positions[b]));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        for (int j = 0; j < runs.size(); j++) {
+            if (positions[j] < to[j]) {
+                heads.add(j);
+            }
+        }
+        while (!heads.isEmpty()) {
+            int j = heads.poll();
+            result[offset++] = runs.get(j).get(positions[j]++);
+            if (positions[j] < to[j]) {
+                heads.add(j);
+            }
+        }
+    }
+
+    private static <T> int lowerBound(List<? extends T> run, T value, Comparator<? super T> comparator) {
+        int l = -1;
+        int r = run.size();
+        while (r - l > 1) {
+            int m = (l + r) >>> 1;
+            if (comparator.compare(run.get(m), value) < 0) {
+                l = m;
+            } else {
+                r = m;
+            }
+        }
+        return r;
+    }
+
     private <T, R> R parallelStreamMap(int threads, List<T> values,
                                        Function<Stream<T>, R> streamMapper,
                                        Function<Stream<R>, R> resultStreamMapper) throws InterruptedException {
-        if (threads < 1) {
-            throw new IllegalArgumentException("Number of threads can't be less than one");
+        return parallelPartMap(threads, values,
+                part -> streamMapper.apply(part.values().stream()),
+                resultStreamMapper);
+    }
+
+    private <T, R, U> U parallelPartMap(int threads, List<T> values,
+                                        Function<Part<T>, R> partMapper,
+                                        Function<Stream<R>, U> resultStreamMapper) throws InterruptedException {
+        checkThreads(threads);
+        if (threads == AUTO_THREADS) {
+            return autoApply(values.size(),
+                    (from, to) -> partMapper.apply(new Part<>(from, values.subList(from, to))),
+                    (from, count) -> divideList(values, from, count),
+                    partMapper, resultStreamMapper);
+        }
+        return parallelApply(divideList(values, 0, threads), partMapper, resultStreamMapper);
+    }
+
+    /**
+     * Divides indices from {@code 0} to {@code size} into at most {@code threads} ranges
+     * and maps each of them in parallel.
+     */
+    <R, U> U parallelRangeMap(int threads, int size,
+                              RangeMapper<R> rangeMapper,
+                              Function<Stream<R>, U> resultStreamMapper) throws InterruptedException {
+        checkThreads(threads);
+        Function<Range, R> partMapper = range -> rangeMapper.apply(range.from, range.to);
+        if (threads == AUTO_THREADS) {
+            return autoApply(size, rangeMapper,
+                    (from, count) -> divideRange(from, size, count),
+                    partMapper, resultStreamMapper);
         }
-        List<Stream<T>> parts = divideList(values, threads);
+        return parallelApply(divideRange(0, size, threads), partMapper, resultStreamMapper);
+    }
+
+    /**
+     * Maps first elements on the calling thread to measure their cost, then chooses number of parts
+     * for the rest elements. Sampling stops as soon as it takes longer than a part is worth,
+     * so expensive elements are not mapped one by one. If the rest is too cheap to be worth starting threads,
+     * it is mapped on the calling thread as a single part.
+     */
+    private <P, R, U> U autoApply(int size,
+                                  RangeMapper<R> sampleMapper,
+                                  BiFunction<Integer, Integer, List<P>> restDivider,
+                                  Function<P, R> partMapper,
+                                  Function<Stream<R>, U> resultStreamMapper) throws InterruptedException {
+        int sampleSize = Math.min(size, AUTO_SAMPLE_SIZE);
+        List<R> results = new ArrayList<>();
+        int sampled = 0;
+        long elapsed = 0;
+        long start = System.nanoTime();
+        // Chunks of 1, 1, 2, 4, ... elements, until the sample is complete or its cost exceeds a part
+        while (sampled < sampleSize && elapsed < minPartNanos()) {
+            int to = Math.min(sampleSize, sampled + Math.max(1, sampled));
+            results.add(sampleMapper.apply(sampled, to));
+            sampled = to;
+            elapsed = System.nanoTime() - start;
+        }
+
+        if (size > sampled) {
+            int count = autoThreads(size - sampled, elapsed, sampled);
+            List<P> parts = restDivider.apply(sampled, count);
+            if (parts.size() == 1) {
+                results.add(partMapper.apply(parts.get(0)));
+            } else {
+                results.addAll(applyParts(parts, partMapper));
+            }
+        }
+        return resultStreamMapper.apply(results.stream());
+    }
+
+    /**
+     * Chooses number of parts for operations, which can't sample cost of elements.
+     */
+    private int autoThreads(int size) {
+        return size == 0 ? 1 : autoThreads(size, DEFAULT_ELEMENT_NANOS * size, size);
+    }
+
+    private int autoThreads(int remaining, long sampleNanos, int sampled) {
+        long perElement = Math.max(1, sampleNanos / sampled);
+        long work = perElement * remaining;
+        long parts = Math.min(Runtime.getRuntime().availableProcessors(), work / minPartNanos());
+        return (int) Math.max(1, Math.min(parts, remaining));
+    }
+
+    private long minPartNanos() {
+        return mapper == null && executor == null ? THREAD_MIN_PART_NANOS : POOL_MIN_PART_NANOS;
+    }
+
+    private <P, R, U> U parallelApply(List<P> parts,
+                                      Function<P, R> partMapper,
+                                      Function<Stream<R>, U> resultStreamMapper) throws InterruptedException {
+        return resultStreamMapper.apply(applyParts(parts, partMapper).stream());
+    }
+
+    private <P, R> List<R> applyParts(List<P> parts, Function<P, R> partMapper) throws InterruptedException {
         List<R> results;
 
-        if (mapper == null) {
+        if (executor != null) {
+            results = executeAll(parts, partMapper);
+        } else if (mapper == null) {
             results = new ArrayList<>(Collections.nCopies(parts.size(), null));
+            Throwable[] failures = new Throwable[parts.size()];
             List<Thread> workers = new ArrayList<>(parts.size());
             for (int i = 0; i < parts.size(); i++) {
                 final int finalIndex = i;
-                workers.add(new Thread(() -> results.set(finalIndex, streamMapper.apply(parts.get(finalIndex)))));
+                workers.add(new Thread(() -> {
+                    try {
+                        results.set(finalIndex, partMapper.apply(parts.get(finalIndex)));
+                    } catch (RuntimeException | Error e) {
+                        failures[finalIndex] = e;
+                    }
+                }));
                 workers.get(i).start();
             }
             joinThreads(workers);
+            rethrowFailures(failures);
         } else {
-            results = mapper.map(streamMapper, parts);
+            results = mapper.map(partMapper, parts);
         }
 
-        return resultStreamMapper.apply(results.stream());
+        return results;
+    }
+
+    /**
+     * Submits all parts but the last one to the executor and maps the last one on the calling thread.
+     */
+    private <P, R> List<R> executeAll(List<P> parts, Function<P, R> partMapper) throws InterruptedException {
+        List<Future<R>> futures = new ArrayList<>(parts.size());
+        for (int i = 0; i + 1 < parts.size(); i++) {
+            final P part = parts.get(i);
+            futures.add(executor.submit(() -> partMapper.apply(part)));
+        }
+
+        List<R> results = new ArrayList<>(parts.size());
+        try {
+            R last = parts.isEmpty() ? null : partMapper.apply(parts.get(parts.size() - 1));
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            if (!parts.isEmpty()) {
+                results.add(last);
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (RuntimeException) e.getCause();
+        } catch (InterruptedException | RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return results;
+    }
+
+    /**
+     * Rethrows the failure of the first failed part on the calling thread,
+     * with failures of the other parts attached as suppressed.
+     */
+    private static void rethrowFailures(Throwable[] failures) {
+        Throwable first = null;
+        for (Throwable failure : failures) {
+            if (failure == null) {
+                continue;
+            }
+            if (first == null) {
+                first = failure;
+            } else {
+                first.addSuppressed(failure);
+            }
+        }
+        if (first instanceof Error) {
+            throw (Error) first;
+        }
+        if (first != null) {
+            throw (RuntimeException) first;
+        }
+    }
+
+    private static <T> List<T> asList(Object[] array) {
+        //noinspection unchecked
+        return (List<T>) Arrays.asList(array);
+    }
+
+    private static void checkThreads(int threads) {
+        if (threads < 1 && threads != AUTO_THREADS) {
+            throw new IllegalArgumentException("Number of threads can't be less than one");
+        }
     }
 
     private static void joinThreads(List<Thread> threads) throws InterruptedException {
@@ -224,22 +782,159 @@ public class IterativeParallelism implements AdvancedIP {
         }
     }
 
-    private static <T> List<Stream<T>> divideList(List<T> list, int maxPartCount) {
-        int step = list.size() / maxPartCount;
-        int rest = list.size() % maxPartCount;
+    /**
+     * Divides list into parts. Parts of a {@link RandomAccess} list are its views. Otherwise
+     * elements are collected into parts by a single pass of a shared iterator,
+     * because each view of a sequential list would be walked from its beginning.
+     * The pass is made by the threads mapping the parts rather than by the calling thread,
+     * so each part starts as soon as its elements are collected.
+     */
+    private static <T> List<Part<T>> divideList(List<T> list, int from, int maxPartCount) {
+        List<Range> ranges = divideRange(from, list.size(), maxPartCount);
+        if (list instanceof RandomAccess) {
+            return ranges.stream()
+                    .map(range -> new Part<>(range.from, list.subList(range.from, range.to)))
+                    .collect(Collectors.toList());
+        }
+
+        SequentialChunks<T> chunks = new SequentialChunks<>(list, from, ranges);
+        List<Part<T>> parts = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            final int finalIndex = i;
+            parts.add(new Part<>(ranges.get(i).from, () -> chunks.take(finalIndex)));
+        }
+        return parts;
+    }
+
+    private static List<Range> divideRange(int from, int to, int maxPartCount) {
+        int step = (to - from) / maxPartCount;
+        int rest = (to - from) % maxPartCount;
 
-        List<Stream<T>> parts = new ArrayList<>();
-        for (int l = 0; l < list.size(); ) {
+        List<Range> ranges = new ArrayList<>();
+        for (int l = from; l < to; ) {
             int r = l + step;
             if (rest > 0) {
                 r++;
                 rest--;
             }
-            parts.add(list.subList(l, r).stream());
+            ranges.add(new Range(l, r));
             l = r;
         }
 
-        return parts;
+        return ranges;
+    }
+
+    /**
+     * Function mapping range of indices to a result.
+     *
+     * @param <R> type of result
+     */
+    @FunctionalInterface
+    interface RangeMapper<R> {
+        R apply(int from, int to);
+    }
+
+    private static class Range {
+        private final int from;
+        private final int to;
+
+        private Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Unmodifiable view of consecutive lists.
+     */
+    private static class ConcatenatedList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<List<T>> lists;
+        private final int[] offsets;
+
+        private ConcatenatedList(List<List<T>> lists) {
+            this.lists = lists;
+            this.offsets = new int[lists.size() + 1];
+            for (int i = 0; i < lists.size(); i++) {
+                offsets[i + 1] = offsets[i] + lists.get(i).size();
+            }
+        }
+
+        @Override
+        public T get(int index) {
+            Objects.checkIndex(index, size());
+            int list = Arrays.binarySearch(offsets, index);
+            if (list < 0) {
+                list = -(list + 1) - 1;
+            } else {
+                // Skip empty lists starting at the same offset
+                while (offsets[list + 1] == index) {
+                    list++;
+                }
+            }
+            return lists.get(list).get(index - offsets[list]);
+        }
+
+        @Override
+        public int size() {
+            return offsets[offsets.length - 1];
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return lists.stream().flatMap(List::stream).iterator();
+        }
+    }
+
+    /**
+     * Consecutive chunks of a sequential list, collected on demand by a single iterator.
+     * Taking a chunk collects all chunks before it, which have not been collected yet.
+     */
+    private static class SequentialChunks<T> {
+        private final List<T> list;
+        private final int from;
+        private final List<Range> ranges;
+        private final List<List<T>> chunks;
+        private Iterator<T> iterator;
+
+        private SequentialChunks(List<T> list, int from, List<Range> ranges) {
+            this.list = list;
+            this.from = from;
+            this.ranges = ranges;
+            this.chunks = new ArrayList<>(ranges.size());
+        }
+
+        private synchronized List<T> take(int index) {
+            if (iterator == null) {
+                iterator = list.listIterator(from);
+            }
+            while (chunks.size() <= index) {
+                Range range = ranges.get(chunks.size());
+                List<T> chunk = new ArrayList<>(range.to - range.from);
+                for (int i = range.from; i < range.to; i++) {
+                    chunk.add(iterator.next());
+                }
+                chunks.add(chunk);
+            }
+            return chunks.get(index);
+        }
+    }
+
+    private static class Part<T> {
+        private final int offset;
+        private final Supplier<List<T>> values;
+
+        private Part(int offset, List<T> values) {
+            this(offset, () -> values);
+        }
+
+        private Part(int offset, Supplier<List<T>> values) {
+            this.offset = offset;
+            this.values = values;
+        }
+
+        private List<T> values() {
+            return values.get();
+        }
     }
 
 }
@@ -3,26 +3,74 @@ package ru.ifmo.rain.gunkin.concurrent;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public class ParallelMapperImpl implements ParallelMapper {
+    /**
+     * Priority of mappings started without explicit priority.
+     */
+    public static final int DEFAULT_PRIORITY = 1;
+
+    private static final long TARGET_BATCH_NANOS = 50_000;
+    private static final int BATCHES_PER_THREAD = 4;
+
     private final List<Thread> threads;
-    private final Queue<Runnable> tasks;
+    private final List<WorkerQueue> queues;
+    private final AtomicInteger nextQueue;
+    private final AtomicInteger pending;
+    private final AtomicInteger sleeping;
+    private final Object idleLock;
+    private final boolean batching;
+    private final ParallelMapperMetrics metrics;
 
     /**
      * Creates a {@code ParallelMapper} instance with the specified number of {@code threads}.
+     * Each thread owns a task queue and steals tasks from other queues when its own one is empty.
+     * Tasks of concurrent mappings are taken from each queue in round-robin order,
+     * so small mappings are not delayed by large ones submitted earlier.
      *
      * @param threadCount number of threads
      */
     public ParallelMapperImpl(int threadCount) {
+        this(threadCount, false);
+    }
+
+    /**
+     * Creates a {@code ParallelMapper} instance with the specified number of {@code threads}.
+     * If {@code batching} is enabled, {@link #map(Function, List)} submits ranges of elements
+     * instead of single elements. Ranges start with single elements and grow as workers measure
+     * the cost of mapping, so no element is mapped by the calling thread.
+     *
+     * @param threadCount number of threads
+     * @param batching    whether elements should be mapped in batches
+     */
+    public ParallelMapperImpl(int threadCount, boolean batching) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Number of threads can't be less than one");
+        }
         this.threads = new ArrayList<>(threadCount);
-        this.tasks = new LinkedList<>();
+        this.queues = new ArrayList<>(threadCount);
+        this.nextQueue = new AtomicInteger();
+        this.pending = new AtomicInteger();
+        this.sleeping = new AtomicInteger();
+        this.idleLock = new Object();
+        this.batching = batching;
+        this.metrics = new ParallelMapperMetrics(threadCount, pending::get);
 
         for (int i = 0; i < threadCount; i++) {
+            queues.add(new WorkerQueue());
+        }
+        for (int i = 0; i < threadCount; i++) {
+            final int workerIndex = i;
             this.threads.add(new Thread(() -> {
                 try {
                     while (!Thread.interrupted()) {
-                        runTask();
+                        runTask(workerIndex);
                     }
                 } catch (InterruptedException ignored) {
                 }
@@ -34,6 +82,8 @@ public class ParallelMapperImpl implements ParallelMapper {
     /**
      * Maps function {@code f} over specified {@code args}.
      * Mapping for each element performs in parallel.
+     * If {@code f} throws an exception or calling thread is interrupted, elements which are not mapped yet
+     * are skipped. The exception is thrown after all already running mappings are finished.
      *
      * @param f    function to apply to each element
      * @param args elements to be mapped
@@ -41,34 +91,152 @@ public class ParallelMapperImpl implements ParallelMapper {
      */
     @Override
     public <T, R> List<R> map(Function<? super T, ? extends R> f, List<? extends T> args) throws InterruptedException {
+        return map(f, args, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} with the specified {@code priority}.
+     * While several mappings are running, each of them gets a share of workers proportional to its priority.
+     *
+     * @param f        function to apply to each element
+     * @param args     elements to be mapped
+     * @param priority positive share of workers of this mapping
+     * @throws InterruptedException     if calling thread was interrupted
+     * @throws IllegalArgumentException if {@code priority} is less than 1
+     * @see #map(Function, List)
+     */
+    public <T, R> List<R> map(Function<? super T, ? extends R> f, List<? extends T> args,
+                              int priority) throws InterruptedException {
+        Job job = startJob(priority);
         ResultList<R> resultList = new ResultList<>(args.size());
-        List<RuntimeException> runtimeExceptions = new ArrayList<>();
+        try {
+            if (batching) {
+                submitBatches(f, args, resultList, job);
+            } else {
+                submitElements(f, args, resultList, job);
+            }
+            return resultList.getList();
+        } catch (InterruptedException e) {
+            cancel(job);
+            resultList.awaitUninterruptibly();
+            throw e;
+        } finally {
+            release(job);
+        }
+    }
 
-        for (int i = 0; i < args.size(); i++) {
-            final int finalIndex = i;
-            synchronized (tasks) {
-                tasks.add(() -> {
-                    R result = null;
-                    try {
-                        result = f.apply(args.get(finalIndex));
-                    } catch (RuntimeException e) {
-                        synchronized (runtimeExceptions) {
-                            runtimeExceptions.add(e);
-                        }
-                    }
-                    resultList.set(finalIndex, result);
-                });
-                tasks.notify();
+    /**
+     * Maps function {@code f} over specified {@code args} without waiting for the results.
+     * Mapping for each element performs in parallel.
+     *
+     * @param f    function to apply to each element
+     * @param args elements to be mapped
+     * @return future completed with list of results, or exceptionally with the first exception thrown by {@code f}.
+     * Cancelling the future skips elements which are not mapped yet
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(Function<? super T, ? extends R> f, List<? extends T> args) {
+        return mapAsync(f, args, DEFAULT_PRIORITY);
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} with the specified {@code priority}
+     * without waiting for the results.
+     *
+     * @param f        function to apply to each element
+     * @param args     elements to be mapped
+     * @param priority positive share of workers of this mapping
+     * @return future of list of results
+     * @throws IllegalArgumentException if {@code priority} is less than 1
+     * @see #mapAsync(Function, List)
+     * @see #map(Function, List, int)
+     */
+    public <T, R> CompletableFuture<List<R>> mapAsync(Function<? super T, ? extends R> f, List<? extends T> args,
+                                                      int priority) {
+        Job job = startJob(priority);
+        ResultList<R> resultList = new ResultList<>(args.size());
+        if (batching) {
+            submitBatches(f, args, resultList, job);
+        } else {
+            submitElements(f, args, resultList, job);
+        }
+        release(job);
+        CompletableFuture<List<R>> future = resultList.getFuture();
+        future.whenComplete((results, e) -> {
+            if (e instanceof CancellationException) {
+                cancel(job);
             }
+        });
+        return future;
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} without waiting for the results.
+     * Each future is completed as soon as its element is mapped.
+     *
+     * @param f    function to apply to each element
+     * @param args elements to be mapped
+     * @return list of futures of results in order of {@code args}.
+     * Cancelling a future skips its element, if it is not mapped yet
+     */
+    public <T, R> List<CompletableFuture<R>> mapEachAsync(Function<? super T, ? extends R> f, List<? extends T> args) {
+        Job job = startJob(DEFAULT_PRIORITY);
+        List<CompletableFuture<R>> futures = new ArrayList<>(args.size());
+        for (T arg : args) {
+            futures.add(submitElement(f, arg, job));
         }
+        release(job);
+        return futures;
+    }
 
-        if (!runtimeExceptions.isEmpty()) {
-            RuntimeException firstException = runtimeExceptions.get(0);
-            runtimeExceptions.stream().skip(1).forEach(firstException::addSuppressed);
-            throw firstException;
+    /**
+     * Lazily maps function {@code f} over elements of {@code source}.
+     * At most {@code window} elements are mapped ahead of the returned iterator, and {@code source}
+     * is not read further until the iterator advances. Results are returned in order of {@code source}.
+     * Both {@code source} and the returned iterator must be used by a single thread.
+     *
+     * @param f      function to apply to each element
+     * @param source elements to be mapped
+     * @param window maximum number of elements mapped ahead of the iterator
+     * @return iterator over results. Its {@code next} method throws {@link java.util.concurrent.CompletionException}
+     * if {@code f} has thrown an exception for the next element. Closing the iterator skips elements
+     * which are not mapped yet. The iterator must be closed, unless it is exhausted,
+     * otherwise the mapping stays in {@link ParallelMapperMXBean#getJobsInFlight() jobs in flight}
+     * @throws IllegalArgumentException if {@code window} is less than 1
+     */
+    public <T, R> StreamIterator<R> mapStream(Function<? super T, ? extends R> f, Iterator<? extends T> source, int window) {
+        return new StreamingIterator<>(f, source, window);
+    }
+
+    /**
+     * Maps function {@code f} over elements of {@code source} and passes results to {@code consumer}
+     * in order of {@code source}. At most {@code window} elements are mapped ahead of the consumer.
+     *
+     * @param f        function to apply to each element
+     * @param source   elements to be mapped
+     * @param window   maximum number of elements mapped ahead of the consumer
+     * @param consumer consumer of results
+     * @throws InterruptedException     if calling thread was interrupted
+     * @throws IllegalArgumentException if {@code window} is less than 1
+     * @throws RuntimeException         first exception thrown by {@code f}, no further results are consumed
+     *                                  and elements which are not mapped yet are skipped
+     */
+    public <T, R> void mapStream(Function<? super T, ? extends R> f, Iterator<? extends T> source, int window,
+                                 Consumer<? super R> consumer) throws InterruptedException {
+        try (StreamingIterator<T, R> iterator = new StreamingIterator<>(f, source, window)) {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.nextResult());
+            }
         }
+    }
 
-        return resultList.getList();
+    /**
+     * Returns metrics of this mapper. Returned object can be registered in an {@code MBeanServer}, for example
+     * {@code ManagementFactory.getPlatformMBeanServer().registerMBean(mapper.getMetrics(), name)}.
+     *
+     * @return live metrics
+     */
+    public ParallelMapperMetrics getMetrics() {
+        return metrics;
     }
 
     /**
@@ -86,40 +254,381 @@ public class ParallelMapperImpl implements ParallelMapper {
         );
     }
 
-    private void runTask() throws InterruptedException {
-        Runnable task;
-        synchronized (tasks) {
-            while (tasks.isEmpty()) {
-                tasks.wait();
+    private <T, R> CompletableFuture<R> submitElement(Function<? super T, ? extends R> f, T arg, Job job) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        submit(job, () -> {
+            if (job.cancelled) {
+                future.cancel(false);
+            }
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(f.apply(arg));
+            } catch (RuntimeException e) {
+                metrics.exceptionThrown();
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private <T, R> void submitElements(Function<? super T, ? extends R> f, List<? extends T> args,
+                                       ResultList<R> resultList, Job job) {
+        for (int i = 0; i < args.size(); i++) {
+            if (job.cancelled) {
+                resultList.complete(args.size() - i);
+                return;
+            }
+            final int finalIndex = i;
+            submit(job, () -> applyRange(f, args, finalIndex, finalIndex + 1, resultList, job));
+        }
+    }
+
+    private <T, R> void submitBatches(Function<? super T, ? extends R> f, List<? extends T> args,
+                                      ResultList<R> resultList, Job job) {
+        Batches<T, R> batches = new Batches<>(f, args, resultList, job);
+        for (int i = 0; i < Math.min(args.size(), threads.size()); i++) {
+            submit(job, batches::run);
+        }
+    }
+
+    private int batchSize(long perElementNanos, int remaining) {
+        if (perElementNanos == 0) {
+            return 1;
+        }
+        long bySpeed = Math.max(1, TARGET_BATCH_NANOS / perElementNanos);
+        long byBalance = Math.max(1, (remaining + BATCHES_PER_THREAD * threads.size() - 1)
+                / (BATCHES_PER_THREAD * threads.size()));
+        return (int) Math.min(bySpeed, byBalance);
+    }
+
+    /**
+     * Maps elements of the range, until the job is cancelled. Skipped elements are reported as complete too.
+     */
+    private <T, R> void applyRange(Function<? super T, ? extends R> f, List<? extends T> args, int from, int to,
+                                   ResultList<R> resultList, Job job) {
+        for (int i = from; i < to && !job.cancelled; i++) {
+            try {
+                resultList.set(i, f.apply(args.get(i)));
+            } catch (RuntimeException e) {
+                metrics.exceptionThrown();
+                resultList.addException(e);
+                cancel(job);
+            }
+        }
+        resultList.complete(to - from);
+    }
+
+    /**
+     * Marks the job as cancelled and removes its tasks from queues.
+     * Removed tasks are run by the calling thread, so they only report their elements as skipped.
+     */
+    private void cancel(Job job) {
+        if (job.cancelled) {
+            return;
+        }
+        job.cancelled = true;
+
+        List<Task> removed = new ArrayList<>();
+        for (WorkerQueue queue : queues) {
+            queue.removeTasks(job, removed);
+        }
+        pending.addAndGet(-removed.size());
+        removed.forEach(this::execute);
+    }
+
+    private Job startJob(int priority) {
+        Job job = new Job(priority);
+        metrics.jobStarted();
+        return job;
+    }
+
+    /**
+     * Drops a reference to the job. The job is finished, when its caller and all of its tasks have released it.
+     */
+    private void release(Job job) {
+        if (job.unfinished.decrementAndGet() == 0) {
+            metrics.jobFinished();
+        }
+    }
+
+    private void execute(Task task) {
+        try {
+            task.run();
+        } finally {
+            release(task.job);
+        }
+    }
+
+    private void submit(Job job, Runnable action) {
+        int index = Math.floorMod(nextQueue.getAndIncrement(), queues.size());
+        job.unfinished.incrementAndGet();
+        // Counted before the push, so a thief never takes pending below zero
+        metrics.taskQueued(pending.getAndIncrement());
+        queues.get(index).push(new Task(job, action));
+        if (sleeping.get() > 0) {
+            synchronized (idleLock) {
+                idleLock.notify();
             }
-            task = tasks.poll();
-            tasks.notify();
         }
-        task.run();
     }
 
-    private static class ResultList<R> {
-        private final List<R> results;
-        private int done;
+    private void runTask(int workerIndex) throws InterruptedException {
+        Task task = takeTask(workerIndex);
+        while (task == null) {
+            synchronized (idleLock) {
+                sleeping.incrementAndGet();
+                try {
+                    while (pending.get() == 0) {
+                        idleLock.wait();
+                    }
+                } finally {
+                    sleeping.decrementAndGet();
+                }
+            }
+            task = takeTask(workerIndex);
+        }
+        long started = System.nanoTime();
+        try {
+            execute(task);
+        } finally {
+            metrics.taskExecuted(workerIndex, task.submitted, started, System.nanoTime());
+        }
+    }
+
+    private Task takeTask(int workerIndex) {
+        Task task = queues.get(workerIndex).poll();
+        for (int i = 1; task == null && i < queues.size(); i++) {
+            task = queues.get((workerIndex + i) % queues.size()).poll();
+        }
+        if (task != null) {
+            pending.decrementAndGet();
+        }
+        return task;
+    }
+
+    /**
+     * Iterator over results of {@link #mapStream(Function, Iterator, int)}.
+     * The mapping is finished, when the iterator is exhausted or closed, so an iterator, which
+     * is abandoned before its end, must be closed.
+     *
+     * @param <R> type of results
+     */
+    public interface StreamIterator<R> extends Iterator<R>, AutoCloseable {
+        /**
+         * Skips elements which are not mapped yet and stops reading the source.
+         */
+        @Override
+        void close();
+    }
+
+    private class StreamingIterator<T, R> implements StreamIterator<R> {
+        private final Function<? super T, ? extends R> f;
+        private final Iterator<? extends T> source;
+        private final int window;
+        private final Deque<CompletableFuture<R>> inFlight;
+        private final Job job;
+        private boolean closed;
+        private boolean finished;
+
+        private StreamingIterator(Function<? super T, ? extends R> f, Iterator<? extends T> source, int window) {
+            if (window < 1) {
+                throw new IllegalArgumentException("Window can't be less than one");
+            }
+            this.f = f;
+            this.source = source;
+            this.window = window;
+            this.inFlight = new ArrayDeque<>(window);
+            this.job = startJob(DEFAULT_PRIORITY);
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            fill();
+            if (inFlight.isEmpty()) {
+                finish();
+                return false;
+            }
+            return true;
+        }
 
-        private ResultList(int size) {
-            this.results = new ArrayList<>(Collections.nCopies(size, null));
-            this.done = 0;
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancel(job);
+            inFlight.forEach(future -> future.cancel(false));
+            inFlight.clear();
+            finish();
         }
 
-        private synchronized void set(int index, R value) {
-            results.set(index, value);
-            done++;
-            if (done == results.size()) {
-                notify();
+        private void finish() {
+            if (!finished) {
+                finished = true;
+                release(job);
             }
         }
 
-        private synchronized List<R> getList() throws InterruptedException {
-            while (done != results.size()) {
-                wait();
+        @Override
+        public R next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-            return results;
+            return inFlight.poll().join();
+        }
+
+        private R nextResult() throws InterruptedException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return inFlight.poll().get();
+            } catch (ExecutionException e) {
+                throw (RuntimeException) e.getCause();
+            }
+        }
+
+        private void fill() {
+            while (inFlight.size() < window && source.hasNext()) {
+                inFlight.add(submitElement(f, source.next(), job));
+            }
+        }
+    }
+
+    /**
+     * Ranges of a batched mapping, claimed by workers from a shared cursor.
+     * Each task maps one range and resubmits itself, so batches of concurrent jobs still alternate.
+     * At least one task is queued or running while there are unclaimed elements,
+     * and once the job is cancelled, the task that notices it reports all of them as skipped.
+     */
+    private class Batches<T, R> {
+        private final Function<? super T, ? extends R> f;
+        private final List<? extends T> args;
+        private final ResultList<R> resultList;
+        private final Job job;
+        private final AtomicInteger next;
+        // Zero until the first range is measured
+        private volatile long perElementNanos;
+
+        private Batches(Function<? super T, ? extends R> f, List<? extends T> args, ResultList<R> resultList, Job job) {
+            this.f = f;
+            this.args = args;
+            this.resultList = resultList;
+            this.job = job;
+            this.next = new AtomicInteger();
+        }
+
+        private void run() {
+            if (!job.cancelled) {
+                int size = batchSize(perElementNanos, args.size() - next.get());
+                int from = next.getAndAdd(size);
+                if (from >= args.size()) {
+                    return;
+                }
+                int to = Math.min(args.size(), from + size);
+                long start = System.nanoTime();
+                applyRange(f, args, from, to, resultList, job);
+                perElementNanos = Math.max(1, (System.nanoTime() - start) / (to - from));
+            }
+            if (job.cancelled) {
+                int from = next.getAndSet(args.size());
+                if (from < args.size()) {
+                    resultList.complete(args.size() - from);
+                }
+            } else if (next.get() < args.size()) {
+                submit(job, this::run);
+            }
+        }
+    }
+
+    /**
+     * Handle of a single mapping call, which allows to skip its remaining elements.
+     */
+    private static class Job {
+        private final int priority;
+        // Unfinished tasks, and the caller until it stops submitting them
+        private final AtomicInteger unfinished = new AtomicInteger(1);
+        private volatile boolean cancelled;
+
+        private Job(int priority) {
+            if (priority < 1) {
+                throw new IllegalArgumentException("Priority can't be less than one");
+            }
+            this.priority = priority;
+        }
+    }
+
+    private static class Task implements Runnable {
+        private final Job job;
+        private final Runnable action;
+        private final long submitted;
+
+        private Task(Job job, Runnable action) {
+            this.job = job;
+            this.action = action;
+            this.submitted = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            action.run();
+        }
+    }
+
+    /**
+     * Queue of tasks grouped by jobs. Jobs are served in round-robin order,
+     * each job gives up to its priority tasks per turn.
+     */
+    private static class WorkerQueue {
+        private final Deque<JobTasks> turns = new ArrayDeque<>();
+        private final Map<Job, JobTasks> jobTasks = new HashMap<>();
+
+        private synchronized void push(Task task) {
+            jobTasks.computeIfAbsent(task.job, job -> {
+                JobTasks tasks = new JobTasks(job);
+                turns.addLast(tasks);
+                return tasks;
+            }).tasks.addLast(task);
+        }
+
+        private synchronized Task poll() {
+            JobTasks current = turns.peekFirst();
+            if (current == null) {
+                return null;
+            }
+            Task task = current.tasks.pollFirst();
+            if (current.tasks.isEmpty()) {
+                turns.pollFirst();
+                jobTasks.remove(current.job);
+            } else if (++current.served >= current.job.priority) {
+                current.served = 0;
+                turns.addLast(turns.pollFirst());
+            }
+            return task;
+        }
+
+        private synchronized void removeTasks(Job job, List<Task> removed) {
+            JobTasks tasks = jobTasks.remove(job);
+            if (tasks != null) {
+                turns.remove(tasks);
+                removed.addAll(tasks.tasks);
+            }
+        }
+    }
+
+    private static class JobTasks {
+        private final Job job;
+        private final Deque<Task> tasks = new ArrayDeque<>();
+        private int served;
+
+        private JobTasks(Job job) {
+            this.job = job;
         }
     }
 }
@@ -0,0 +1,86 @@
+package ru.ifmo.rain.gunkin.concurrent;
+
+/**
+ * Management interface of {@link ParallelMapperImpl} metrics.
+ * Histograms are arrays of counts, {@code i}-th of which is the number of values
+ * from {@code 2^i} inclusive to {@code 2^(i+1)} exclusive, zeros are counted in the first one.
+ * Durations are measured in nanoseconds.
+ */
+public interface ParallelMapperMXBean {
+    /**
+     * Returns number of worker threads.
+     *
+     * @return number of threads
+     */
+    int getThreadCount();
+
+    /**
+     * Returns number of tasks waiting in queues.
+     *
+     * @return queue depth
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns number of mappings, which are started but not finished.
+     *
+     * @return jobs in flight
+     */
+    long getJobsInFlight();
+
+    /**
+     * Returns number of tasks executed by workers.
+     *
+     * @return completed tasks
+     */
+    long getCompletedTasks();
+
+    /**
+     * Returns number of exceptions thrown by mapping functions.
+     *
+     * @return exceptions count
+     */
+    long getExceptions();
+
+    /**
+     * Returns mean time between submitting of a task and its start.
+     *
+     * @return mean wait time in nanoseconds
+     */
+    double getMeanTaskWaitNanos();
+
+    /**
+     * Returns mean execution time of a task.
+     *
+     * @return mean execution time in nanoseconds
+     */
+    double getMeanTaskExecutionNanos();
+
+    /**
+     * Returns histogram of times between submitting of a task and its start.
+     *
+     * @return wait time histogram
+     */
+    long[] getTaskWaitHistogram();
+
+    /**
+     * Returns histogram of execution times of tasks.
+     *
+     * @return execution time histogram
+     */
+    long[] getTaskExecutionHistogram();
+
+    /**
+     * Returns histogram of numbers of tasks waiting in queues, recorded when each task is submitted.
+     *
+     * @return queue depth histogram
+     */
+    long[] getQueueDepthHistogram();
+
+    /**
+     * Returns part of time since start, which each worker spent executing tasks.
+     *
+     * @return busy ratio of each worker
+     */
+    double[] getBusyRatios();
+}
@@ -0,0 +1,269 @@
+package ru.ifmo.rain.gunkin.concurrent;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of a {@link ParallelMapperImpl}. Counters are striped, so recording is cheap under contention.
+ * The instance can be registered in an {@code MBeanServer} as {@link ParallelMapperMXBean}.
+ */
+public class ParallelMapperMetrics implements ParallelMapperMXBean {
+    private static final int BUCKETS = 64;
+
+    private final long startNanos;
+    private final IntSupplier queueDepth;
+    private final AtomicLongArray busyNanos;
+    private final LongAdder jobsInFlight = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final Histogram waitTimes = new Histogram();
+    private final Histogram executionTimes = new Histogram();
+    private final Histogram queueDepths = new Histogram();
+
+    ParallelMapperMetrics(int threadCount, IntSupplier queueDepth) {
+        this.startNanos = System.nanoTime();
+        this.queueDepth = queueDepth;
+        this.busyNanos = new AtomicLongArray(threadCount);
+    }
+
+    void jobStarted() {
+        jobsInFlight.increment();
+    }
+
+    void jobFinished() {
+        jobsInFlight.decrement();
+    }
+
+    void taskQueued(int depth) {
+        queueDepths.record(depth);
+    }
+
+    void exceptionThrown() {
+        exceptions.increment();
+    }
+
+    void taskExecuted(int workerIndex, long submittedNanos, long startedNanos, long finishedNanos) {
+        waitTimes.record(startedNanos - submittedNanos);
+        executionTimes.record(finishedNanos - startedNanos);
+        // Each element is written only by its own worker
+        busyNanos.lazySet(workerIndex, busyNanos.get(workerIndex) + finishedNanos - startedNanos);
+    }
+
+    /**
+     * Returns immutable copy of current values of metrics.
+     *
+     * @return snapshot of metrics
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(this);
+    }
+
+    @Override
+    public int getThreadCount() {
+        return busyNanos.length();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queueDepth.getAsInt();
+    }
+
+    @Override
+    public long getJobsInFlight() {
+        return jobsInFlight.sum();
+    }
+
+    @Override
+    public long getCompletedTasks() {
+        return executionTimes.count.sum();
+    }
+
+    @Override
+    public long getExceptions() {
+        return exceptions.sum();
+    }
+
+    @Override
+    public double getMeanTaskWaitNanos() {
+        return waitTimes.mean();
+    }
+
+    @Override
+    public double getMeanTaskExecutionNanos() {
+        return executionTimes.mean();
+    }
+
+    @Override
+    public long[] getTaskWaitHistogram() {
+        return waitTimes.counts();
+    }
+
+    @Override
+    public long[] getTaskExecutionHistogram() {
+        return executionTimes.counts();
+    }
+
+    @Override
+    public long[] getQueueDepthHistogram() {
+        return queueDepths.counts();
+    }
+
+    @Override
+    public double[] getBusyRatios() {
+        double elapsed = Math.max(1, System.nanoTime() - startNanos);
+        double[] ratios = new double[busyNanos.length()];
+        for (int i = 0; i < ratios.length; i++) {
+            ratios[i] = busyNanos.get(i) / elapsed;
+        }
+        return ratios;
+    }
+
+    private static class Histogram {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long sample) {
+            long value = Math.max(0, sample);
+            buckets[value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value)].increment();
+            count.increment();
+            sum.add(value);
+        }
+
+        private double mean() {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        private long[] counts() {
+            return Arrays.stream(buckets).mapToLong(LongAdder::sum).toArray();
+        }
+    }
+
+    /**
+     * Values of metrics at some moment.
+     * Values are read one by one, so they may be slightly inconsistent with each other.
+     */
+    public static class Snapshot {
+        private final int threadCount;
+        private final int queueDepth;
+        private final long jobsInFlight;
+        private final long completedTasks;
+        private final long exceptions;
+        private final double meanTaskWaitNanos;
+        private final double meanTaskExecutionNanos;
+        private final long[] taskWaitHistogram;
+        private final long[] taskExecutionHistogram;
+        private final long[] queueDepthHistogram;
+        private final double[] busyRatios;
+
+        private Snapshot(ParallelMapperMetrics metrics) {
+            this.threadCount = metrics.getThreadCount();
+            this.queueDepth = metrics.getQueueDepth();
+            this.jobsInFlight = metrics.getJobsInFlight();
+            this.completedTasks = metrics.getCompletedTasks();
+            this.exceptions = metrics.getExceptions();
+            this.meanTaskWaitNanos = metrics.getMeanTaskWaitNanos();
+            this.meanTaskExecutionNanos = metrics.getMeanTaskExecutionNanos();
+            this.taskWaitHistogram = metrics.getTaskWaitHistogram();
+            this.taskExecutionHistogram = metrics.getTaskExecutionHistogram();
+            this.queueDepthHistogram = metrics.getQueueDepthHistogram();
+            this.busyRatios = metrics.getBusyRatios();
+        }
+
+        /**
+         * @return number of worker threads
+         * @see ParallelMapperMXBean#getThreadCount()
+         */
+        public int getThreadCount() {
+            return threadCount;
+        }
+
+        /**
+         * @return number of tasks waiting in queues
+         * @see ParallelMapperMXBean#getQueueDepth()
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * @return number of mappings in flight
+         * @see ParallelMapperMXBean#getJobsInFlight()
+         */
+        public long getJobsInFlight() {
+            return jobsInFlight;
+        }
+
+        /**
+         * @return number of executed tasks
+         * @see ParallelMapperMXBean#getCompletedTasks()
+         */
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        /**
+         * @return number of exceptions thrown by mapping functions
+         * @see ParallelMapperMXBean#getExceptions()
+         */
+        public long getExceptions() {
+            return exceptions;
+        }
+
+        /**
+         * @return mean wait time in nanoseconds
+         * @see ParallelMapperMXBean#getMeanTaskWaitNanos()
+         */
+        public double getMeanTaskWaitNanos() {
+            return meanTaskWaitNanos;
+        }
+
+        /**
+         * @return mean execution time in nanoseconds
+         * @see ParallelMapperMXBean#getMeanTaskExecutionNanos()
+         */
+        public double getMeanTaskExecutionNanos() {
+            return meanTaskExecutionNanos;
+        }
+
+        /**
+         * @return wait time histogram
+         * @see ParallelMapperMXBean#getTaskWaitHistogram()
+         */
+        public long[] getTaskWaitHistogram() {
+            return taskWaitHistogram.clone();
+        }
+
+        /**
+         * @return execution time histogram
+         * @see ParallelMapperMXBean#getTaskExecutionHistogram()
+         */
+        public long[] getTaskExecutionHistogram() {
+            return taskExecutionHistogram.clone();
+        }
+
+        /**
+         * @return queue depth histogram
+         * @see ParallelMapperMXBean#getQueueDepthHistogram()
+         */
+        public long[] getQueueDepthHistogram() {
+            return queueDepthHistogram.clone();
+        }
+
+        /**
+         * @return busy ratio of each worker
+         * @see ParallelMapperMXBean#getBusyRatios()
+         */
+        public double[] getBusyRatios() {
+            return busyRatios.clone();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package ru.ifmo.rain.gunkin.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.*;
+
+/**
+ * Parallel aggregations over primitive arrays.
+ * Arrays are divided into index ranges in the same way as lists in {@link IterativeParallelism},
+ * values are never boxed.
+ */
+public class PrimitiveParallelism {
+    private final IterativeParallelism parallelism;
+
+    /**
+     * Creates an instance of {@code PrimitiveParallelism} without {@code ParallelMapper}.
+     */
+    public PrimitiveParallelism() {
+        this.parallelism = new IterativeParallelism();
+    }
+
+    /**
+     * Creates an instance of {@code PrimitiveParallelism}
+     * with specified {@code ParallelMapper}.
+     *
+     * @param mapper the {@code ParallelMapper}
+     */
+    public PrimitiveParallelism(ParallelMapper mapper) {
+        this.parallelism = new IterativeParallelism(mapper);
+    }
+
+    /**
+     * Creates an instance of {@code PrimitiveParallelism}, which runs parts on threads
+     * of specified {@code executor}. The executor is not shut down by this instance.
+     *
+     * @param executor the {@code ExecutorService}
+     */
+    public PrimitiveParallelism(ExecutorService executor) {
+        this.parallelism = new IterativeParallelism(executor);
+    }
+
+    /**
+     * Returns minimum value.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to get minimum of.
+     * @return minimum of given values
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws NoSuchElementException   if not values are given.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public int minimum(int threads, int[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return mapReduce(threads, values, IntUnaryOperator.identity(), Integer.MAX_VALUE, Math::min);
+    }
+
+    /**
+     * Returns maximum value.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to get maximum of.
+     * @return maximum of given values
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws NoSuchElementException   if not values are given.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public int maximum(int threads, int[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return mapReduce(threads, values, IntUnaryOperator.identity(), Integer.MIN_VALUE, Math::max);
+    }
+
+    /**
+     * Returns sum of values. The sum is computed in {@code long}, so it does not overflow for {@code int} values.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to sum.
+     * @return sum of given values or {@code 0}, if no values are given.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public long sum(int threads, int[] values) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    long sum = 0;
+                    for (int i = from; i < to; i++) {
+                        sum += values[i];
+                    }
+                    return sum;
+                },
+                resultStream -> resultStream.reduce(0L, Long::sum));
+    }
+
+    /**
+     * Returns number of values satisfying predicate.
+     *
+     * @param threads   number of concurrent threads.
+     * @param values    values to test.
+     * @param predicate test predicate.
+     * @return number of values satisfying predicate.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public int countIf(int threads, int[] values, IntPredicate predicate) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    int count = 0;
+                    for (int i = from; i < to; i++) {
+                        if (predicate.test(values[i])) {
+                            count++;
+                        }
+                    }
+                    return count;
+                },
+                resultStream -> resultStream.reduce(0, Integer::sum));
+    }
+
+    /**
+     * Maps and reduces values using associative operator.
+     *
+     * @param threads  number of concurrent threads.
+     * @param values   values to reduce.
+     * @param lift     mapping function.
+     * @param identity identity of the operator.
+     * @param operator associative operator.
+     * @return values reduced by provided operator or {@code identity} if not values specified.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public int mapReduce(int threads, int[] values, IntUnaryOperator lift,
+                         int identity, IntBinaryOperator operator) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    int result = identity;
+                    for (int i = from; i < to; i++) {
+                        result = operator.applyAsInt(result, lift.applyAsInt(values[i]));
+                    }
+                    return result;
+                },
+                resultStream -> resultStream.reduce(identity, operator::applyAsInt));
+    }
+
+    /**
+     * Returns minimum value.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to get minimum of.
+     * @return minimum of given values
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws NoSuchElementException   if not values are given.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public long minimum(int threads, long[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return mapReduce(threads, values, LongUnaryOperator.identity(), Long.MAX_VALUE, Math::min);
+    }
+
+    /**
+     * Returns maximum value.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to get maximum of.
+     * @return maximum of given values
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws NoSuchElementException   if not values are given.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public long maximum(int threads, long[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return mapReduce(threads, values, LongUnaryOperator.identity(), Long.MIN_VALUE, Math::max);
+    }
+
+    /**
+     * Returns sum of values.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to sum.
+     * @return sum of given values or {@code 0}, if no values are given.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public long sum(int threads, long[] values) throws InterruptedException {
+        return mapReduce(threads, values, LongUnaryOperator.identity(), 0, Long::sum);
+    }
+
+    /**
+     * Returns number of values satisfying predicate.
+     *
+     * @param threads   number of concurrent threads.
+     * @param values    values to test.
+     * @param predicate test predicate.
+     * @return number of values satisfying predicate.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public int countIf(int threads, long[] values, LongPredicate predicate) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    int count = 0;
+                    for (int i = from; i < to; i++) {
+                        if (predicate.test(values[i])) {
+                            count++;
+                        }
+                    }
+                    return count;
+                },
+                resultStream -> resultStream.reduce(0, Integer::sum));
+    }
+
+    /**
+     * Maps and reduces values using associative operator.
+     *
+     * @param threads  number of concurrent threads.
+     * @param values   values to reduce.
+     * @param lift     mapping function.
+     * @param identity identity of the operator.
+     * @param operator associative operator.
+     * @return values reduced by provided operator or {@code identity} if not values specified.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public long mapReduce(int threads, long[] values, LongUnaryOperator lift,
+                          long identity, LongBinaryOperator operator) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    long result = identity;
+                    for (int i = from; i < to; i++) {
+                        result = operator.applyAsLong(result, lift.applyAsLong(values[i]));
+                    }
+                    return result;
+                },
+                resultStream -> resultStream.reduce(identity, operator::applyAsLong));
+    }
+
+    /**
+     * Returns minimum value. If any of values is {@code NaN}, the result is {@code NaN}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to get minimum of.
+     * @return minimum of given values
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws NoSuchElementException   if not values are given.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public double minimum(int threads, double[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return mapReduce(threads, values, DoubleUnaryOperator.identity(), Double.POSITIVE_INFINITY, Math::min);
+    }
+
+    /**
+     * Returns maximum value. If any of values is {@code NaN}, the result is {@code NaN}.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to get maximum of.
+     * @return maximum of given values
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws NoSuchElementException   if not values are given.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public double maximum(int threads, double[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return mapReduce(threads, values, DoubleUnaryOperator.identity(), Double.NEGATIVE_INFINITY, Math::max);
+    }
+
+    /**
+     * Returns sum of values. Parts are summed independently, so the result may differ
+     * from the sequential sum by rounding errors.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to sum.
+     * @return sum of given values or {@code 0}, if no values are given.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public double sum(int threads, double[] values) throws InterruptedException {
+        return mapReduce(threads, values, DoubleUnaryOperator.identity(), 0, Double::sum);
+    }
+
+    /**
+     * Returns number of values satisfying predicate.
+     *
+     * @param threads   number of concurrent threads.
+     * @param values    values to test.
+     * @param predicate test predicate.
+     * @return number of values satisfying predicate.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public int countIf(int threads, double[] values, DoublePredicate predicate) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    int count = 0;
+                    for (int i = from; i < to; i++) {
+                        if (predicate.test(values[i])) {
+                            count++;
+                        }
+                    }
+                    return count;
+                },
+                resultStream -> resultStream.reduce(0, Integer::sum));
+    }
+
+    /**
+     * Maps and reduces values using associative operator.
+     *
+     * @param threads  number of concurrent threads.
+     * @param values   values to reduce.
+     * @param lift     mapping function.
+     * @param identity identity of the operator.
+     * @param operator associative operator.
+     * @return values reduced by provided operator or {@code identity} if not values specified.
+     * @throws InterruptedException     if executing thread was interrupted.
+     * @throws IllegalArgumentException if number of threads less than 1 and not {@link IterativeParallelism#AUTO_THREADS}.
+     */
+    public double mapReduce(int threads, double[] values, DoubleUnaryOperator lift,
+                            double identity, DoubleBinaryOperator operator) throws InterruptedException {
+        return parallelism.parallelRangeMap(threads, values.length,
+                (from, to) -> {
+                    double result = identity;
+                    for (int i = from; i < to; i++) {
+                        result = operator.applyAsDouble(result, lift.applyAsDouble(values[i]));
+                    }
+                    return result;
+                },
+                resultStream -> resultStream.reduce(identity, operator::applyAsDouble));
+    }
+
+    private static void checkNotEmpty(int length) {
+        if (length == 0) {
+            throw new NoSuchElementException("No values are given");
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package ru.ifmo.rain.gunkin.concurrent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Preallocated list of mapping results, which can be awaited until all of them are set.
+ *
+ * @param <R> type of results
+ */
+class ResultList<R> {
+    private final Object[] results;
+    private final List<RuntimeException> exceptions;
+    private final CompletableFuture<List<R>> future;
+    private RuntimeException failure;
+    private int done;
+
+    ResultList(int size) {
+        this.results = new Object[size];
+        this.exceptions = new ArrayList<>();
+        this.future = new CompletableFuture<>();
+        this.done = 0;
+        if (size == 0) {
+            future.complete(asList());
+        }
+    }
+
+    /**
+     * Stores the value without locking. It is published by the following {@link #complete(int)} call.
+     */
+    void set(int index, R value) {
+        results[index] = value;
+    }
+
+    synchronized void addException(RuntimeException e) {
+        exceptions.add(e);
+    }
+
+    void complete(int count) {
+        synchronized (this) {
+            done += count;
+            if (done != results.length) {
+                return;
+            }
+            if (!exceptions.isEmpty()) {
+                failure = exceptions.get(0);
+                exceptions.stream().skip(1).forEach(failure::addSuppressed);
+            }
+            notify();
+        }
+        // Dependent actions of the future run outside of the lock
+        if (failure == null) {
+            future.complete(asList());
+        } else {
+            future.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * Waits until all results are set.
+     *
+     * @return list of results
+     * @throws InterruptedException if calling thread was interrupted
+     * @throws RuntimeException     first exception thrown during mapping, with others suppressed
+     */
+    synchronized List<R> getList() throws InterruptedException {
+        while (done != results.length) {
+            wait();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return asList();
+    }
+
+    /**
+     * Waits until all results are set, ignoring interrupts.
+     */
+    synchronized void awaitUninterruptibly() {
+        while (done != results.length) {
+            try {
+                wait();
+            } catch (InterruptedException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Returns future, which is completed when all results are set.
+     *
+     * @return future of list of results
+     */
+    CompletableFuture<List<R>> getFuture() {
+        return future;
+    }
+
+    private List<R> asList() {
+        //noinspection unchecked
+        return (List<R>) Arrays.asList(results);
+    }
+}
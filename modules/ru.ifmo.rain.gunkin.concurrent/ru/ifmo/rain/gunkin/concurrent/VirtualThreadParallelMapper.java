@@ -0,0 +1,169 @@
+package ru.ifmo.rain.gunkin.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * {@code ParallelMapper} which starts a new thread for each element instead of using a fixed set of workers.
+ * By default threads are virtual, when the running JVM supports them, so mapping functions can block
+ * on I/O without occupying platform threads. Otherwise elements are mapped by a pool of platform threads,
+ * which is grown up to the concurrency limit and shrunk when idle.
+ * Number of simultaneously running tasks is limited.
+ */
+public class VirtualThreadParallelMapper implements ParallelMapper {
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final ThreadPoolExecutor pool;
+    private final Set<Thread> running;
+    private volatile boolean closed;
+
+    /**
+     * Creates a {@code ParallelMapper} instance running at most {@code maxConcurrency} tasks at once
+     * on virtual threads. If virtual threads are not supported, tasks are run by at most {@code maxConcurrency}
+     * reused daemon platform threads, which are stopped after {@value #KEEP_ALIVE_SECONDS} seconds of idleness.
+     *
+     * @param maxConcurrency maximum number of simultaneously running tasks
+     */
+    public VirtualThreadParallelMapper(int maxConcurrency) {
+        this(maxConcurrency, virtualThreadFactory(), true);
+    }
+
+    /**
+     * Creates a {@code ParallelMapper} instance running at most {@code maxConcurrency} tasks at once
+     * on threads created by the specified {@code threadFactory}, a new thread for each element.
+     *
+     * @param maxConcurrency maximum number of simultaneously running tasks
+     * @param threadFactory  factory of threads running tasks
+     */
+    public VirtualThreadParallelMapper(int maxConcurrency, ThreadFactory threadFactory) {
+        this(maxConcurrency, Objects.requireNonNull(threadFactory), false);
+    }
+
+    /**
+     * Starts a thread per task with {@code threadFactory}, or pools platform threads if it is {@code null}.
+     */
+    private VirtualThreadParallelMapper(int maxConcurrency, ThreadFactory threadFactory, boolean poolIfAbsent) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit can't be less than one");
+        }
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = threadFactory;
+        this.running = ConcurrentHashMap.newKeySet();
+        if (threadFactory == null && poolIfAbsent) {
+            // A finished task releases its permit before its thread takes the next one, so tasks are queued
+            // rather than handed off, and the semaphore keeps the queue short
+            this.pool = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.pool.allowCoreThreadTimeOut(true);
+        } else {
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args}.
+     * Mapping for each element performs in a separate thread.
+     * If a thread can't be started, remaining elements are skipped and the failure is rethrown
+     * after already running mappings are finished.
+     *
+     * @param f    function to apply to each element
+     * @param args elements to be mapped
+     * @throws InterruptedException  if calling thread was interrupted
+     * @throws IllegalStateException if the mapper is closed
+     */
+    @Override
+    public <T, R> List<R> map(Function<? super T, ? extends R> f, List<? extends T> args) throws InterruptedException {
+        ResultList<R> resultList = new ResultList<>(args.size());
+
+        for (int i = 0; i < args.size(); i++) {
+            if (closed) {
+                throw new IllegalStateException("Mapper is closed");
+            }
+            permits.acquire();
+
+            final int finalIndex = i;
+            Runnable task = () -> {
+                try {
+                    resultList.set(finalIndex, f.apply(args.get(finalIndex)));
+                } catch (RuntimeException e) {
+                    resultList.addException(e);
+                } finally {
+                    permits.release();
+                    resultList.complete(1);
+                }
+            };
+            try {
+                start(task);
+            } catch (RuntimeException | Error e) {
+                permits.release();
+                resultList.complete(args.size() - i);
+                resultList.awaitUninterruptibly();
+                throw e;
+            }
+        }
+
+        return resultList.getList();
+    }
+
+    /**
+     * Interrupts all running tasks. All unfinished mappings leave in undefined state.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        running.forEach(Thread::interrupt);
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void start(Runnable task) {
+        if (pool != null) {
+            pool.execute(task);
+            return;
+        }
+        Thread thread = threadFactory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                running.remove(Thread.currentThread());
+            }
+        });
+        if (thread == null) {
+            throw new RejectedExecutionException("Thread factory has not created a thread");
+        }
+        running.add(thread);
+        try {
+            thread.start();
+        } catch (RuntimeException | Error e) {
+            running.remove(thread);
+            throw e;
+        }
+    }
+
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+}
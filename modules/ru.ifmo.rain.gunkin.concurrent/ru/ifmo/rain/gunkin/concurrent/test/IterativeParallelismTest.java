@@ -0,0 +1,182 @@
+package ru.ifmo.rain.gunkin.concurrent.test;
+
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP.Monoid;
+import org.junit.AfterClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import ru.ifmo.rain.gunkin.concurrent.IterativeParallelism;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperImpl;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class IterativeParallelismTest {
+    private static final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private static final ParallelMapperImpl mapper = new ParallelMapperImpl(4);
+    private static final List<IterativeParallelism> instances = List.of(
+            new IterativeParallelism(),
+            new IterativeParallelism(executor),
+            new IterativeParallelism(mapper)
+    );
+
+    @AfterClass
+    public static void shutdown() {
+        executor.shutdownNow();
+        mapper.close();
+    }
+
+    private static List<Integer> randomValues(int size, long seed) {
+        return new Random(seed).ints(size, 0, size / 4 + 1).boxed().collect(Collectors.toList());
+    }
+
+    private static List<List<Integer>> sortedLists(List<Integer> values, int length) {
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += length) {
+            List<Integer> list = new ArrayList<>(values.subList(i, Math.min(values.size(), i + length)));
+            Collections.sort(list);
+            lists.add(list);
+        }
+        return lists;
+    }
+
+    private static List<Integer> sorted(List<Integer> values) {
+        List<Integer> expected = new ArrayList<>(values);
+        Collections.sort(expected);
+        return expected;
+    }
+
+    @Test(timeout = 10_000)
+    public void test01_sortWithMoreThreadsThanValues() throws InterruptedException {
+        for (IterativeParallelism ip : instances) {
+            for (int size : new int[]{0, 1, 10, 1000}) {
+                List<Integer> values = randomValues(size, size);
+                assertEquals(sorted(values), ip.sort(100_000, values, Comparator.naturalOrder()));
+            }
+        }
+        List<Integer> values = randomValues(100_000, 1);
+        assertEquals(sorted(values), instances.get(1).sort(10_000, values, Comparator.naturalOrder()));
+    }
+
+    @Test(timeout = 10_000)
+    public void test02_mergeSortedWithMoreThreadsThanValues() throws InterruptedException {
+        for (IterativeParallelism ip : instances) {
+            for (int size : new int[]{0, 1, 10, 1000}) {
+                List<Integer> values = randomValues(size, size);
+                List<List<Integer>> lists = sortedLists(values, 3);
+                lists.add(List.of());
+                assertEquals(sorted(values), ip.mergeSorted(100_000, lists, Comparator.naturalOrder()));
+            }
+        }
+        List<Integer> values = randomValues(100_000, 2);
+        assertEquals(sorted(values),
+                instances.get(1).mergeSorted(10_000, sortedLists(values, 7), Comparator.naturalOrder()));
+    }
+
+    @Test
+    public void test03_sortIsStable() throws InterruptedException {
+        List<int[]> pairs = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            pairs.add(new int[]{random.nextInt(10), i});
+        }
+        List<int[]> expected = new ArrayList<>(pairs);
+        expected.sort(Comparator.comparingInt(pair -> pair[0]));
+
+        for (IterativeParallelism ip : instances) {
+            for (int threads : new int[]{1, 3, 8, 20_000}) {
+                List<int[]> actual = ip.sort(threads, pairs, Comparator.comparingInt(pair -> pair[0]));
+                for (int i = 0; i < expected.size(); i++) {
+                    assertSame(expected.get(i), actual.get(i));
+                }
+            }
+        }
+    }
+
+    private interface Search {
+        Object apply(IterativeParallelism ip, int threads, List<Integer> values, Predicate<Integer> predicate)
+                throws InterruptedException;
+    }
+
+    // The predicate fails on values 3 and 8, which the search has to test to find its answer
+    private static void checkPredicateFailure(Search search, Predicate<Integer> predicate) throws InterruptedException {
+        List<Integer> values = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        for (IterativeParallelism ip : instances) {
+            for (int threads : new int[]{1, 2, 4, 10}) {
+                try {
+                    Object result = search.apply(ip, threads, values, value -> {
+                        if (value == 3 || value == 8) {
+                            throw new IllegalStateException("Failed on " + value);
+                        }
+                        return predicate.test(value);
+                    });
+                    fail("Predicate failure was lost, the result is " + result);
+                } catch (IllegalStateException e) {
+                    assertTrue(e.getMessage().startsWith("Failed on "));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void test04_findFirstRethrowsPredicateFailure() throws InterruptedException {
+        checkPredicateFailure(IterativeParallelism::findFirst, value -> value > 5);
+    }
+
+    @Test
+    public void test05_findAnyRethrowsPredicateFailure() throws InterruptedException {
+        checkPredicateFailure(IterativeParallelism::findAny, value -> false);
+    }
+
+    @Test
+    public void test06_anyAndAllRethrowPredicateFailure() throws InterruptedException {
+        checkPredicateFailure(IterativeParallelism::any, value -> false);
+        checkPredicateFailure(IterativeParallelism::all, value -> true);
+    }
+
+    @Test
+    public void test07_failuresOfAllPartsAreReported() throws InterruptedException {
+        List<Integer> values = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        try {
+            instances.get(0).map(4, values, value -> {
+                if (value % 25 == 0) {
+                    throw new IllegalStateException("Failed on " + value);
+                }
+                return value;
+            });
+            fail("Mapping failure was lost");
+        } catch (IllegalStateException e) {
+            assertEquals("Failed on 0", e.getMessage());
+            assertEquals(3, e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void test08_sequentialLists() throws InterruptedException {
+        List<Integer> expected = randomValues(10_000, 8);
+        List<Integer> values = new LinkedList<>(expected);
+        List<Integer> prefixSums = new ArrayList<>();
+        int sum = 0;
+        for (int value : expected) {
+            sum += value;
+            prefixSums.add(sum);
+        }
+
+        for (IterativeParallelism ip : instances) {
+            for (int threads : new int[]{IterativeParallelism.AUTO_THREADS, 1, 3, 8, 20_000}) {
+                assertEquals(expected, ip.map(threads, values, Integer::valueOf));
+                assertEquals(prefixSums, ip.scan(threads, values, new Monoid<>(0, Integer::sum)));
+                assertEquals(expected.stream().filter(value -> value > 2000).findFirst(),
+                        ip.findFirst(threads, values, value -> value > 2000));
+                assertEquals(sorted(expected), ip.sort(threads, values, Comparator.naturalOrder()));
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.ifmo.rain.gunkin.concurrent.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runners.MethodSorters;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperImpl;
+import ru.ifmo.rain.gunkin.concurrent.ParallelMapperMetrics;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ParallelMapperMetricsTest {
+    private static final long TIMEOUT_MILLIS = 5_000;
+
+    private ParallelMapperImpl mapper;
+    private ParallelMapperMetrics metrics;
+    private CountDownLatch started;
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() {
+        mapper = new ParallelMapperImpl(2);
+        metrics = mapper.getMetrics();
+        started = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        mapper.close();
+    }
+
+    private static List<Integer> values(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    // Blocks on the first element until released
+    private Function<Integer, Integer> blockingFunction() {
+        return value -> {
+            if (value == 0) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return value;
+        };
+    }
+
+    private void awaitNoJobsInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (metrics.getJobsInFlight() != 0) {
+            assertTrue("Job has not finished", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void test01_cancelledMapAsyncFinishesAfterRunningTasks() throws InterruptedException {
+        CompletableFuture<List<Integer>> future = mapper.mapAsync(blockingFunction(), values(100));
+        started.await();
+
+        assertTrue(future.cancel(false));
+        assertEquals(1, metrics.getJobsInFlight());
+
+        release.countDown();
+        awaitNoJobsInFlight();
+    }
+
+    @Test
+    public void test02_cancelledMapEachAsyncFinishesAfterRunningTasks() throws InterruptedException {
+        List<CompletableFuture<Integer>> futures = mapper.mapEachAsync(blockingFunction(), values(100));
+        started.await();
+
+        futures.forEach(future -> future.cancel(false));
+        assertEquals(1, metrics.getJobsInFlight());
+
+        release.countDown();
+        awaitNoJobsInFlight();
+    }
+
+    @Test
+    public void test03_closedStreamFinishesAfterRunningTasks() throws InterruptedException {
+        ParallelMapperImpl.StreamIterator<Integer> iterator =
+                mapper.mapStream(blockingFunction(), values(100).iterator(), 10);
+        assertTrue(iterator.hasNext());
+        started.await();
+
+        iterator.close();
+        assertFalse(iterator.hasNext());
+        assertEquals(1, metrics.getJobsInFlight());
+
+        release.countDown();
+        awaitNoJobsInFlight();
+    }
+
+    @Test
+    public void test04_exhaustedStreamFinishes() throws InterruptedException {
+        Iterator<Integer> iterator = mapper.mapStream(Function.identity(), values(100).iterator(), 10);
+        int expected = 0;
+        while (iterator.hasNext()) {
+            assertEquals(Integer.valueOf(expected++), iterator.next());
+        }
+
+        assertEquals(100, expected);
+        awaitNoJobsInFlight();
+    }
+
+    @Test
+    public void test05_queueDepthHistogram() throws InterruptedException {
+        CompletableFuture<List<Integer>> future = mapper.mapAsync(blockingFunction(), values(1000));
+        started.await();
+        release.countDown();
+        future.join();
+        awaitNoJobsInFlight();
+
+        long[] histogram = metrics.getQueueDepthHistogram();
+        assertEquals(1000, IntStream.range(0, histogram.length).mapToLong(i -> histogram[i]).sum());
+        assertTrue("Deep queues are not recorded", IntStream.range(8, histogram.length).anyMatch(i -> histogram[i] > 0));
+        assertArrayEquals(histogram, metrics.snapshot().getQueueDepthHistogram());
+    }
+}